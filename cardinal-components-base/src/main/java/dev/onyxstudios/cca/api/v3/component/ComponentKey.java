@@ -53,6 +53,14 @@ public abstract class ComponentKey<T extends Component> {
         return this.componentClass;
     }
 
+    /**
+     * @return the string representation of this key's {@linkplain #getId() id}, as used in serialized data
+     */
+    @ApiStatus.Internal
+    public final String getSerializedId() {
+        return this.serializedId;
+    }
+
     /**
      * @param provider a component provider
      * @return the attached component associated with this key, or
@@ -93,6 +101,7 @@ public abstract class ComponentKey<T extends Component> {
 
     private final Class<T> componentClass;
     private final Identifier id;
+    private final String serializedId;
 
     /**
      * Constructs a new immutable ComponentType
@@ -104,5 +113,6 @@ public abstract class ComponentKey<T extends Component> {
         if (!CcaBootstrap.INSTANCE.isGenerated(this.getClass())) throw new IllegalStateException();
         this.componentClass = componentClass;
         this.id = id;
+        this.serializedId = id.toString().intern();
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import nerdhub.cardinal.components.api.component.extension.ChangeTrackingComponent;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
+import net.minecraft.nbt.CompoundTag;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Keeps track of changes made to the components of a container since it was last saved.
+ *
+ * @see ChangeTrackingComponent
+ */
+public final class ComponentChangeTracker {
+    private final ComponentContainer<?> components;
+    private final boolean deferSnapshots;
+    /**
+     * Change counts of every component at the time of the last save, in iteration order,
+     * or {@code null} if the container has not been saved yet.
+     * Entries corresponding to untracked components are meaningless.
+     */
+    @Nullable
+    private int[] savedCounts;
+    /**
+     * Private copies of the tags written by the last call to {@link #toTag(CompoundTag)}, in iteration order,
+     * or {@code null} if the last save did not go through this tracker.
+     * Entries corresponding to untracked or snapshottable components are always {@code null}.
+     * These tags are never handed out, so that consumers modifying saved data cannot corrupt later saves.
+     */
+    @Nullable
+    private CompoundTag[] savedTags;
+
+    /**
+     * Creates a change tracker which output may contain {@link SnapshotTag}s.
+     * Such output must be handed straight to a disk writer.
+     */
+    public ComponentChangeTracker(ComponentContainer<?> components) {
+        this(components, true);
+    }
+
+    /**
+     * @param deferSnapshots if {@code true}, {@linkplain nerdhub.cardinal.components.api.component.extension.SnapshottableComponent snapshottable}
+     *                       components are written as {@link SnapshotTag}s, which must not reach code that
+     *                       may copy or compare them
+     */
+    public ComponentChangeTracker(ComponentContainer<?> components, boolean deferSnapshots) {
+        this.components = components;
+        this.deferSnapshots = deferSnapshots;
+    }
+
+    /**
+     * @return {@code true} if any component may have changed since the last call to {@link #markSaved()}
+     */
+    public boolean hasChanged() {
+        int[] savedCounts = this.savedCounts;
+        if (savedCounts == null || savedCounts.length != this.components.size()) {
+            return true;
+        }
+        int i = 0;
+        for (Component component : this.components.values()) {
+            if (!(component instanceof ChangeTrackingComponent) || ((ChangeTrackingComponent) component).getChangeCount() != savedCounts[i++]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a {@link ChangeTrackingComponent} reported a change since the last save.
+     *
+     * <p> Unlike {@link #hasChanged()}, this method ignores untracked components,
+     * and returns {@code false} if the container has never been saved.
+     *
+     * @return {@code true} if a tracked component is known to have changed since the last save
+     */
+    public boolean hasTrackedChanges() {
+        int[] savedCounts = this.savedCounts;
+        if (savedCounts == null) {
+            return false;
+        }
+        if (savedCounts.length != this.components.size()) {
+            return true;
+        }
+        int i = 0;
+        for (Component component : this.components.values()) {
+            if (component instanceof ChangeTrackingComponent && ((ChangeTrackingComponent) component).getChangeCount() != savedCounts[i]) {
+                return true;
+            }
+            i++;
+        }
+        return false;
+    }
+
+    /**
+     * Records the current state of every component as saved.
+     */
+    public void markSaved() {
+        int[] counts = new int[this.components.size()];
+        int i = 0;
+        for (Component component : this.components.values()) {
+            if (component instanceof ChangeTrackingComponent) {
+                counts[i] = ((ChangeTrackingComponent) component).getChangeCount();
+            }
+            i++;
+        }
+        this.savedCounts = counts;
+        this.savedTags = null;
+    }
+
+    /**
+     * Serializes the tracked container into {@code tag}, then records its state as saved.
+     *
+     * <p> The output is the same as {@link ComponentContainer#toTag(CompoundTag)}, except that
+     * tracked components that did not change since the previous call to this method
+     * get a copy of the tag written at that time instead of being serialized again.
+     * The tracker keeps its own copy of every reusable tag, so the output can be freely modified.
+     * {@linkplain nerdhub.cardinal.components.api.component.extension.SnapshottableComponent Snapshottable}
+     * components are only encoded when the resulting tag is accessed, and are therefore never reused.
+     *
+     * @param tag the tag to write the container's data into
+     * @return {@code tag}
+     */
+    public CompoundTag toTag(CompoundTag tag) {
+        int size = this.components.size();
+        if (ComponentsInternals.useLegacyNbtFormat() || size == 0) {
+            this.components.toTag(tag);
+            this.markSaved();
+            return tag;
+        }
+        int[] savedCounts = this.savedCounts;
+        CompoundTag[] savedTags = this.savedTags;
+        boolean reuse = savedCounts != null && savedTags != null && savedCounts.length == size;
+        int[] counts = new int[size];
+        CompoundTag[] tags = new CompoundTag[size];
+        CompoundTag componentMap = new CompoundTag();
+        int i = 0;
+        for (Map.Entry<ComponentType<?>, ? extends Component> entry : this.components.entrySet()) {
+            Component component = entry.getValue();
+            CompoundTag componentTag;
+            if (component instanceof ChangeTrackingComponent) {
+                int count = ((ChangeTrackingComponent) component).getChangeCount();
+                if (reuse && savedTags[i] != null && savedCounts[i] == count) {
+                    tags[i] = savedTags[i];
+                    componentTag = savedTags[i].copy();
+                } else {
+                    componentTag = this.serialize(component);
+                    // copying a snapshot tag would encode it right away
+                    tags[i] = componentTag instanceof SnapshotTag ? null : componentTag.copy();
+                }
+                counts[i] = count;
+            } else {
+                componentTag = this.serialize(component);
+            }
+            componentMap.put(entry.getKey().getSerializedId(), componentTag);
+            i++;
+        }
+        AbstractComponentContainer.putComponentMap(tag, componentMap);
+        this.savedCounts = counts;
+        this.savedTags = tags;
+        return tag;
+    }
+
+    private CompoundTag serialize(Component component) {
+        return this.deferSnapshots ? SnapshotTag.toTag(component) : component.toTag(new CompoundTag());
+    }
+}
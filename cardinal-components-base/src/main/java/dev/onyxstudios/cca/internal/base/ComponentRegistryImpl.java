@@ -37,9 +37,20 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nullable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+/**
+ * The component registry implementation.
+ *
+ * <p> The registry's state is held in immutable {@link Tables}, which are replaced
+ * every time a raw id or a component type gets registered. Lookups read the
+ * current tables without locking, and are safe to perform from any thread.
+ * Registrations are serialized and copy the tables, which is fine as they mostly
+ * happen once during initialization.
+ */
 public final class ComponentRegistryImpl implements ComponentRegistry {
 
     // used by generated classes
@@ -47,7 +58,7 @@ public final class ComponentRegistryImpl implements ComponentRegistry {
         ComponentRegistryImpl registry = (ComponentRegistryImpl) INSTANCE;
         ComponentType<?> ret = registry.get(rawId);
         if (ret == null) {
-            for (Object2IntMap.Entry<Identifier> entry : registry.id2Raw.object2IntEntrySet()) {
+            for (Object2IntMap.Entry<Identifier> entry : registry.tables.id2Raw.object2IntEntrySet()) {
                 if (entry.getIntValue() == rawId) {
                     throw new IllegalStateException("The component type for '" + entry.getKey() + "'  was not registered");
                 }
@@ -58,46 +69,49 @@ public final class ComponentRegistryImpl implements ComponentRegistry {
     }
 
     private final ComponentTypeAccess access;
-    private final Object2IntMap<Identifier> id2Raw;
-    private ComponentType<?>[] raw2Types;
-    private int nextRawId = 0;
-    private int size;
+    private volatile Tables tables = new Tables();
 
     public ComponentRegistryImpl(ComponentTypeAccess access) {
         this.access = access;
-        this.id2Raw = new Object2IntOpenHashMap<>(16);
-        this.raw2Types = new ComponentType[16];
-        this.id2Raw.defaultReturnValue(-1);
     }
 
     @Override
-    public synchronized <T extends Component> ComponentType<T> registerIfAbsent(Identifier componentId, Class<T> componentClass) {
+    public <T extends Component> ComponentType<T> registerIfAbsent(Identifier componentId, Class<T> componentClass) {
         Preconditions.checkArgument(Component.class.isAssignableFrom(componentClass), "Component interface must extend " + Component.class.getCanonicalName());
-        // make sure 2+ components cannot get registered at the same time
-        int rawId = this.assignRawId(componentId);
-        @SuppressWarnings("unchecked")
-        ComponentType<T> existing = (ComponentType<T>) this.get(rawId);
-        if (existing != null) {
-            if (existing.getComponentClass() != componentClass) {
-                throw new IllegalStateException("Registered component " + componentId + " twice with 2 different classes: " + existing.getComponentClass() + ", " + componentClass);
+        ComponentType<?> existing = this.get(componentId);
+        if (existing == null) {
+            // make sure 2+ components cannot get registered at the same time
+            synchronized (this) {
+                existing = this.get(componentId);
+                if (existing == null) {
+                    return this.register(componentId, componentClass);
+                }
             }
-            return existing;
+        }
+        if (existing.getComponentClass() != componentClass) {
+            throw new IllegalStateException("Registered component " + componentId + " twice with 2 different classes: " + existing.getComponentClass() + ", " + componentClass);
+        }
+        @SuppressWarnings("unchecked") ComponentType<T> ret = (ComponentType<T>) existing;
+        return ret;
+    }
+
+    private <T extends Component> ComponentType<T> register(Identifier componentId, Class<T> componentClass) {
+        assert Thread.holdsLock(this);
+        int rawId = this.assignRawId(componentId);
+        ComponentType<T> registered;
+        // may trigger the static bootstrap, which assigns more raw ids
+        Class<? extends ComponentType<?>> generated = CcaBootstrap.INSTANCE.getGeneratedComponentTypeClass(componentId);
+        if (generated != null) {
+            registered = this.instantiateStaticType(generated, componentId, componentClass, rawId);
         } else {
-            ComponentType<T> registered;
-            Class<? extends ComponentType<?>> generated = CcaBootstrap.INSTANCE.getGeneratedComponentTypeClass(componentId);
-            if (generated != null) {
-                registered = this.instantiateStaticType(generated, componentId, componentClass, rawId);
-            } else {
-                registered = this.access.create(componentId, componentClass, rawId);
-            }
-            if (this.raw2Types.length <= rawId) {
-                this.raw2Types = Arrays.copyOf(this.raw2Types, rawId + 16);
-            }
-            this.raw2Types[rawId] = registered;
-            this.size++;
-            ComponentRegisteredCallback.EVENT.invoker().onComponentRegistered(componentId, componentClass, registered);
-            return registered;
+            registered = this.access.create(componentId, componentClass, rawId);
         }
+        Tables tables = this.tables;
+        ComponentType<?>[] raw2Types = Arrays.copyOf(tables.raw2Types, Math.max(tables.raw2Types.length, rawId + 1));
+        raw2Types[rawId] = registered;
+        this.tables = new Tables(tables.id2Raw, tables.raw2Ids, raw2Types, tables.size + 1);
+        ComponentRegisteredCallback.EVENT.invoker().onComponentRegistered(componentId, componentClass, registered);
+        return registered;
     }
 
     @Override
@@ -109,18 +123,30 @@ public final class ComponentRegistryImpl implements ComponentRegistry {
     }
 
     public int size() {
-        return this.size;
+        return this.tables.size;
     }
 
-    public synchronized int assignRawId(Identifier componentId) {
-        int existing = this.id2Raw.getInt(componentId);
+    public int assignRawId(Identifier componentId) {
+        int existing = this.tables.id2Raw.getInt(componentId);
         if (existing >= 0) {
             return existing;
         }
-        int rawId = this.nextRawId;
-        this.id2Raw.put(componentId, rawId);
-        this.nextRawId++;
-        return rawId;
+        synchronized (this) {
+            Tables tables = this.tables;
+            existing = tables.id2Raw.getInt(componentId);
+            if (existing >= 0) {
+                return existing;
+            }
+            // raw ids are assigned sequentially
+            int rawId = tables.id2Raw.size();
+            Object2IntMap<Identifier> id2Raw = new Object2IntOpenHashMap<>(tables.id2Raw);
+            id2Raw.defaultReturnValue(-1);
+            id2Raw.put(componentId, rawId);
+            Identifier[] raw2Ids = Arrays.copyOf(tables.raw2Ids, rawId + 1);
+            raw2Ids[rawId] = componentId;
+            this.tables = new Tables(id2Raw, raw2Ids, tables.raw2Types, tables.size);
+            return rawId;
+        }
     }
 
     private <T extends Component> ComponentType<T> instantiateStaticType(Class<? extends ComponentType<?>> generated, Identifier componentId, Class<T> componentClass, int rawId) {
@@ -134,7 +160,7 @@ public final class ComponentRegistryImpl implements ComponentRegistry {
 
     @Nullable
     private ComponentType<?> get(int rawId) {
-        ComponentType<?>[] raw2Types = this.raw2Types;
+        ComponentType<?>[] raw2Types = this.tables.raw2Types;
         if (rawId >= 0 && rawId < raw2Types.length) {
             return raw2Types[rawId];
         }
@@ -144,19 +170,59 @@ public final class ComponentRegistryImpl implements ComponentRegistry {
     @Nullable
     @Override
     public ComponentType<?> get(Identifier id) {
-        return this.get(this.id2Raw.getInt(id));
+        Tables tables = this.tables;
+        int rawId = tables.id2Raw.getInt(id);
+        if (rawId >= 0 && rawId < tables.raw2Types.length) {
+            return tables.raw2Types[rawId];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the identifiers of every component type that has been assigned a raw id so far.
+     *
+     * <p> Raw ids are assigned sequentially, so the returned list maps every raw id
+     * that is lower than its size to the corresponding identifier.
+     *
+     * @return an immutable snapshot of the raw id mapping
+     */
+    public List<Identifier> getRawIdMapping() {
+        return Collections.unmodifiableList(Arrays.asList(this.tables.raw2Ids));
     }
 
     @Override
     public Stream<ComponentType<?>> stream() {
-        return Arrays.stream(this.raw2Types).filter(Objects::nonNull);
+        return Arrays.stream(this.tables.raw2Types).filter(Objects::nonNull);
     }
 
     @VisibleForTesting
-    void clear() {
-        this.id2Raw.clear();
-        this.raw2Types = new ComponentType[16];
-        this.nextRawId = 0;
-        this.size = 0;
+    public synchronized void clear() {
+        this.tables = new Tables();
+    }
+
+    /**
+     * A snapshot of the registry's content. Neither the map nor the arrays
+     * are ever modified once the snapshot has been published.
+     */
+    private static final class Tables {
+        final Object2IntMap<Identifier> id2Raw;
+        final Identifier[] raw2Ids;
+        final ComponentType<?>[] raw2Types;
+        final int size;
+
+        Tables() {
+            this.id2Raw = new Object2IntOpenHashMap<>();
+            this.id2Raw.defaultReturnValue(-1);
+            this.raw2Ids = new Identifier[0];
+            this.raw2Types = new ComponentType[0];
+            this.size = 0;
+        }
+
+        Tables(Object2IntMap<Identifier> id2Raw, Identifier[] raw2Ids, ComponentType<?>[] raw2Types, int size) {
+            this.id2Raw = id2Raw;
+            this.raw2Ids = raw2Ids;
+            this.raw2Types = raw2Types;
+            this.size = size;
+        }
     }
 }
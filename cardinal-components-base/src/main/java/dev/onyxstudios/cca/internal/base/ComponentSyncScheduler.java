@@ -0,0 +1,129 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.BaseSyncedComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the components synchronized during a server tick that {@linkplain BaseSyncedComponent#shouldDeferSync() defer}
+ * their synchronization, to send them at the end of the tick.
+ *
+ * <p> Components are grouped by provider, so that each watcher receives a single bundle per provider.
+ * A component synchronized several times during the same tick is only sent once.
+ */
+public final class ComponentSyncScheduler {
+    private static final Map<Object, PendingSync<?>> pending = new Reference2ObjectLinkedOpenHashMap<>();
+    private static final List<Runnable> flushListeners = new CopyOnWriteArrayList<>();
+    private static final List<Runnable> clearListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Schedules the synchronization of {@code component} with every player watching {@code provider}.
+     */
+    public static <P> void schedule(SyncChannel<P> channel, P provider, SyncedComponent component) {
+        synchronized (pending) {
+            @SuppressWarnings("unchecked") PendingSync<P> sync = (PendingSync<P>) pending.get(provider);
+            if (sync == null) {
+                sync = new PendingSync<>(channel, provider);
+                pending.put(provider, sync);
+            }
+            sync.components.add(component);
+        }
+    }
+
+    /**
+     * Registers an action to run every time pending synchronizations are sent,
+     * letting other systems batch their own packets at the same point of the tick.
+     */
+    public static void addFlushListener(Runnable listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * Registers an action to run every time pending synchronizations are discarded,
+     * letting systems registered through {@link #addFlushListener(Runnable)} drop their own pending packets.
+     */
+    public static void addClearListener(Runnable listener) {
+        clearListeners.add(listener);
+    }
+
+    /**
+     * Sends every pending synchronization. Called on the server thread at the end of each tick.
+     */
+    public static void flush() {
+        List<PendingSync<?>> syncs = null;
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                syncs = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+        }
+        if (syncs != null) {
+            for (PendingSync<?> sync : syncs) {
+                try {
+                    sync.send();
+                } catch (Exception e) {
+                    ComponentsInternals.LOGGER.error("Error while synchronizing components", e);
+                }
+            }
+        }
+        for (Runnable listener : flushListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Discards every pending synchronization. Called when the server shuts down.
+     */
+    public static void clear() {
+        synchronized (pending) {
+            pending.clear();
+        }
+        for (Runnable listener : clearListeners) {
+            listener.run();
+        }
+    }
+
+    private static final class PendingSync<P> {
+        private final SyncChannel<P> channel;
+        private final P provider;
+        private final Set<SyncedComponent> components = new ReferenceLinkedOpenHashSet<>();
+
+        PendingSync(SyncChannel<P> channel, P provider) {
+            this.channel = channel;
+            this.provider = provider;
+        }
+
+        void send() {
+            this.channel.sync(this.provider, this.components);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import io.netty.buffer.Unpooled;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.util.sync.SyncPacketDecoder;
+import net.fabricmc.fabric.api.event.network.C2SPacketTypeCallback;
+import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Negotiates the compact encoding of component types in sync packets.
+ *
+ * <p> When a client announces that it can receive the {@linkplain #ID_MAP_PACKET_ID raw id map},
+ * the server sends it the identifiers of every component type that has been assigned a raw id.
+ * From then on, sync packets sent to that client use the compact channel of their provider,
+ * and refer to component types by their raw id. Component types that were not part of the map
+ * are written as identifiers, prefixed by a {@code 0}.
+ *
+ * <p> Clients that never receive the map keep being sent the original packets,
+ * with component types written as identifiers.
+ */
+public final class ComponentsBaseNetworking {
+    /**
+     * Channel used by the server to send its raw id mapping.
+     * Packets contain the number of mapped ids as a varint, followed by every mapped identifier in raw id order.
+     */
+    public static final Identifier ID_MAP_PACKET_ID = new Identifier("cardinal-components", "id_map");
+
+    /**
+     * Number of raw ids known by each client, keyed by their (weakly referenced) network handler
+     */
+    private static final Map<ServerPlayNetworkHandler, Integer> mappedRawIds = new MapMaker().weakKeys().makeMap();
+    /**
+     * Component types by server raw id, as received from the current server
+     */
+    private static volatile ComponentType<?>[] clientTypes = new ComponentType<?>[0];
+    private static volatile Identifier[] clientIds = new Identifier[0];
+    private static final Map<ComponentType<?>, SyncPacketDecoder<?>> decoders = new ConcurrentHashMap<>();
+
+    public static void init() {
+        if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
+            C2SPacketTypeCallback.REGISTERED.register((player, types) -> {
+                if (types.contains(ID_MAP_PACKET_ID) && player instanceof ServerPlayerEntity) {
+                    ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
+                    // sync packets are sent from the server thread, the map must be sent in order with them
+                    serverPlayer.server.execute(() -> sendIdMap(serverPlayer));
+                }
+            });
+        }
+    }
+
+    private static void sendIdMap(ServerPlayerEntity player) {
+        if (player.networkHandler == null) {
+            return;
+        }
+        List<Identifier> mapping = ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).getRawIdMapping();
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeVarInt(mapping.size());
+        for (Identifier id : mapping) {
+            buf.writeIdentifier(id);
+        }
+        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, ID_MAP_PACKET_ID, buf);
+        mappedRawIds.put(player.networkHandler, mapping.size());
+    }
+
+    /**
+     * Writes a reference to a component type in a packet destined to the given player.
+     *
+     * <p> If the player's client received the raw id map, the component type is written
+     * using the compact encoding, and the packet must be sent on the provider's compact channel.
+     * Otherwise, the component type's identifier is written as is.
+     *
+     * @return {@code true} if the compact encoding was used
+     */
+    public static boolean writeComponentType(ServerPlayerEntity player, PacketByteBuf buf, ComponentType<?> type) {
+        int mapped = getMappedRawIds(player);
+        writeComponentType(buf, type, mapped);
+        return mapped >= 0;
+    }
+
+    /**
+     * @return the number of raw ids known by the player's client, or {@code -1} if it did not receive the raw id map
+     */
+    public static int getMappedRawIds(ServerPlayerEntity player) {
+        Integer mapped = player.networkHandler == null ? null : mappedRawIds.get(player.networkHandler);
+        return mapped == null ? -1 : mapped;
+    }
+
+    /**
+     * Writes a reference to a component type, using the compact encoding if {@code mapped} is not negative.
+     *
+     * @param mapped the number of raw ids known by the receiver, as returned by {@link #getMappedRawIds(ServerPlayerEntity)}
+     */
+    public static void writeComponentType(PacketByteBuf buf, ComponentType<?> type, int mapped) {
+        if (mapped < 0) {
+            buf.writeIdentifier(type.getId());
+            return;
+        }
+        int rawId = type.getRawId();
+        if (rawId < mapped) {
+            buf.writeVarInt(rawId + 1);
+        } else {
+            buf.writeVarInt(0);
+            buf.writeIdentifier(type.getId());
+        }
+    }
+
+    /**
+     * Reads a reference to a component type written by {@link #writeComponentType(ServerPlayerEntity, PacketByteBuf, ComponentType)}.
+     *
+     * @param compact {@code true} if the packet was received on a compact channel
+     * @return the referenced component type, or {@code null} if it is unknown to this client
+     */
+    @Nullable
+    public static ComponentType<?> readComponentType(PacketByteBuf buf, boolean compact) {
+        return readComponentType(buf, compact, clientTypes, clientIds);
+    }
+
+    @Nullable
+    @VisibleForTesting
+    static ComponentType<?> readComponentType(PacketByteBuf buf, boolean compact, ComponentType<?>[] types, Identifier[] ids) {
+        if (!compact) {
+            return ComponentRegistry.INSTANCE.get(buf.readIdentifier());
+        }
+        int ref = buf.readVarInt();
+        if (ref == 0) {
+            return ComponentRegistry.INSTANCE.get(buf.readIdentifier());
+        }
+        int rawId = ref - 1;
+        if (rawId >= types.length || rawId >= ids.length) {
+            // the map was not received, or was cleared when disconnecting
+            return null;
+        }
+        ComponentType<?> type = types[rawId];
+        if (type == null) {
+            // the component type may have been registered after the map was received
+            type = ComponentRegistry.INSTANCE.get(ids[rawId]);
+            types[rawId] = type;
+        }
+        return type;
+    }
+
+    /**
+     * Forgets the raw id map received from the last server, called when the client disconnects.
+     */
+    public static void clearClientIdMap() {
+        clientTypes = new ComponentType<?>[0];
+        clientIds = new Identifier[0];
+    }
+
+    public static <C extends Component> void registerDecoder(ComponentType<C> type, SyncPacketDecoder<? super C> decoder) {
+        decoders.put(type, decoder);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <C extends Component> SyncPacketDecoder<? super C> getDecoder(ComponentType<C> type) {
+        return (SyncPacketDecoder<? super C>) decoders.get(type);
+    }
+
+    // Safe to put in the same class as no client-only class is directly referenced
+    public static void initClient() {
+        if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
+            ClientSidePacketRegistry.INSTANCE.register(ID_MAP_PACKET_ID, (context, buffer) -> {
+                try {
+                    int size = buffer.readVarInt();
+                    Identifier[] ids = new Identifier[size];
+                    ComponentType<?>[] types = new ComponentType<?>[size];
+                    for (int i = 0; i < size; i++) {
+                        ids[i] = buffer.readIdentifier();
+                        types[i] = ComponentRegistry.INSTANCE.get(ids[i]);
+                    }
+                    clientIds = ids;
+                    clientTypes = types;
+                } catch (Exception e) {
+                    ComponentsInternals.LOGGER.error("Error while reading component id map from network", e);
+                    throw e;
+                }
+            });
+        }
+    }
+}
@@ -22,6 +22,7 @@
  */
 package dev.onyxstudios.cca.internal.base;
 
+import com.google.common.annotations.VisibleForTesting;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentLoadingException;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
@@ -41,6 +42,12 @@ import java.util.function.Function;
 
 public final class ComponentsInternals {
     public static final Logger LOGGER = LogManager.getLogger("Cardinal Components API");
+    /**
+     * If {@code true}, component containers will be saved using the legacy list format,
+     * which can still be read by older versions of Cardinal Components API.
+     */
+    private static boolean legacyNbtFormat = Boolean.getBoolean("cca.legacy_nbt_format");
+    private static volatile boolean warnedUnsupportedNbtVersion;
 
     private static final Field EVENT$TYPE;
     private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
@@ -59,6 +66,28 @@ public final class ComponentsInternals {
         }
     }
 
+    /**
+     * @return {@code true} if component containers should be saved using the legacy list format
+     */
+    public static boolean useLegacyNbtFormat() {
+        return legacyNbtFormat;
+    }
+
+    @VisibleForTesting
+    public static void setLegacyNbtFormat(boolean legacy) {
+        legacyNbtFormat = legacy;
+    }
+
+    /**
+     * Logs a warning the first time component data written by a newer version of the NBT format is read.
+     */
+    public static void warnUnsupportedNbtVersion(int version) {
+        if (!warnedUnsupportedNbtVersion) {
+            warnedUnsupportedNbtVersion = true;
+            LOGGER.warn("Reading component data saved with unsupported format version {}, some of it may be lost", version);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <E extends ComponentCallback<P, ? super C>, T extends Component, P, C extends T> E createCallback(Event<E> event, ComponentType<T> type, Function<P,C> factory) {
         try {
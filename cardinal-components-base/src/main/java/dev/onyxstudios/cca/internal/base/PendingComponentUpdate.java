@@ -0,0 +1,105 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentProvider;
+import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.DeltaSyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.SyncPacketDecoder;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.minecraft.network.PacketByteBuf;
+
+import javax.annotation.Nullable;
+
+/**
+ * Synchronization data received for a component, waiting to be applied on the game thread.
+ *
+ * <p> If a {@link SyncPacketDecoder} is registered for the component's type, the data is decoded
+ * when the update is created. Otherwise, the update keeps the received buffer until it is {@linkplain #release() released}.
+ */
+public final class PendingComponentUpdate<C extends Component> {
+    private final ComponentType<C> type;
+    private final boolean delta;
+    @Nullable
+    private final SyncPacketDecoder.Update<? super C> decoded;
+    @Nullable
+    private PacketByteBuf payload;
+
+    private PendingComponentUpdate(ComponentType<C> type, boolean delta, @Nullable SyncPacketDecoder.Update<? super C> decoded, @Nullable PacketByteBuf payload) {
+        this.type = type;
+        this.delta = delta;
+        this.decoded = decoded;
+        this.payload = payload;
+    }
+
+    /**
+     * Creates an update from a component's synchronization data. This method is called on the network thread.
+     *
+     * @param payload a retained buffer containing exactly the component's data, owned by the returned update
+     * @param delta   {@code true} if the data was written by {@link DeltaSyncedComponent#writeDeltaToPacket(PacketByteBuf)}
+     */
+    public static <C extends Component> PendingComponentUpdate<C> read(ComponentType<C> type, PacketByteBuf payload, boolean delta) {
+        SyncPacketDecoder<? super C> decoder = delta ? null : ComponentsBaseNetworking.getDecoder(type);
+        if (decoder == null) {
+            return new PendingComponentUpdate<>(type, delta, null, payload);
+        }
+        try {
+            return new PendingComponentUpdate<>(type, false, decoder.decode(payload), null);
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * Applies this update to the component provided by {@code provider}, if any. This method is called on the game thread.
+     */
+    public void apply(PacketContext context, @Nullable Object provider) {
+        C component = provider instanceof ComponentProvider ? this.type.getNullable((ComponentProvider) provider) : null;
+        if (component == null) {
+            return;
+        }
+        if (this.decoded != null) {
+            this.decoded.applyTo(component);
+        } else if (this.payload != null) {
+            if (this.delta) {
+                if (component instanceof DeltaSyncedComponent) {
+                    ((DeltaSyncedComponent) component).readDeltaFromPacket(this.payload);
+                }
+            } else if (component instanceof SyncedComponent) {
+                ((SyncedComponent) component).processPacket(context, this.payload);
+            }
+        }
+    }
+
+    /**
+     * Releases the buffer held by this update, if any.
+     */
+    public void release() {
+        if (this.payload != null) {
+            this.payload.release();
+            this.payload = null;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import nerdhub.cardinal.components.api.component.extension.SnapshottableComponent;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compound tag which content is written from a {@link SnapshottableComponent.Snapshot}
+ * the first time it is accessed.
+ *
+ * <p> When the tag is only accessed by the thread writing it to disk,
+ * the snapshot's serialization happens on that thread.
+ * Any other access from another thread waits for the serialization to complete.
+ *
+ * <p> Vanilla methods taking another tag as argument, such as {@link CompoundTag#copyFrom(CompoundTag)}
+ * and {@link CompoundTag#equals(Object)}, read its content directly, and see an unresolved snapshot tag as empty.
+ * Snapshot tags must therefore only be created on save paths that hand them straight to the disk writer.
+ */
+public final class SnapshotTag extends CompoundTag {
+    @Nullable
+    private SnapshottableComponent.Snapshot snapshot;
+    private volatile boolean resolved;
+    /**
+     * Set while the snapshot writes into this tag, guarded by this tag's monitor
+     */
+    private boolean resolving;
+
+    private SnapshotTag(SnapshottableComponent.Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Serializes a component for saving.
+     *
+     * @return a {@code SnapshotTag} if the component is {@linkplain SnapshottableComponent snapshottable},
+     * or the result of the component's {@link Component#toTag(CompoundTag)} method otherwise
+     */
+    public static CompoundTag toTag(Component component) {
+        if (component instanceof SnapshottableComponent) {
+            return new SnapshotTag(((SnapshottableComponent) component).createSnapshot());
+        }
+        return component.toTag(new CompoundTag());
+    }
+
+    /**
+     * Serializes a component container for saving.
+     *
+     * <p> The output is the same as {@link ComponentContainer#toTag(CompoundTag)}, except that
+     * {@linkplain SnapshottableComponent snapshottable} components are only encoded when the
+     * resulting tag is accessed.
+     *
+     * @param tag the tag to write the container's data into
+     * @return {@code tag}
+     */
+    public static CompoundTag writeComponents(ComponentContainer<?> components, CompoundTag tag) {
+        if (ComponentsInternals.useLegacyNbtFormat() || components.isEmpty()) {
+            return components.toTag(tag);
+        }
+        CompoundTag componentMap = new CompoundTag();
+        for (Map.Entry<ComponentType<?>, ? extends Component> entry : components.entrySet()) {
+            componentMap.put(entry.getKey().getSerializedId(), toTag(entry.getValue()));
+        }
+        AbstractComponentContainer.putComponentMap(tag, componentMap);
+        return tag;
+    }
+
+    private void resolve() {
+        if (!this.resolved) {
+            synchronized (this) {
+                SnapshottableComponent.Snapshot snapshot = this.snapshot;
+                // the snapshot calls back into this tag while writing
+                if (snapshot != null && !this.resolving) {
+                    this.resolving = true;
+                    try {
+                        snapshot.toTag(this);
+                        this.snapshot = null;
+                        this.resolved = true;
+                    } catch (RuntimeException e) {
+                        // discard partial data, the snapshot gets another chance on the next access
+                        for (String key : new ArrayList<>(super.getKeys())) {
+                            super.remove(key);
+                        }
+                        ComponentsInternals.LOGGER.error("Failed to serialize component snapshot " + snapshot, e);
+                        throw e;
+                    } finally {
+                        this.resolving = false;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(DataOutput output) throws IOException {
+        this.resolve();
+        super.write(output);
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        this.resolve();
+        return super.getKeys();
+    }
+
+    @Override
+    public int getSize() {
+        this.resolve();
+        return super.getSize();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        this.resolve();
+        return super.isEmpty();
+    }
+
+    @Nullable
+    @Override
+    public Tag put(String key, Tag tag) {
+        this.resolve();
+        return super.put(key, tag);
+    }
+
+    @Nullable
+    @Override
+    public Tag get(String key) {
+        this.resolve();
+        return super.get(key);
+    }
+
+    @Override
+    public byte getType(String key) {
+        this.resolve();
+        return super.getType(key);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        this.resolve();
+        return super.contains(key);
+    }
+
+    @Override
+    public boolean contains(String key, int type) {
+        this.resolve();
+        return super.contains(key, type);
+    }
+
+    @Override
+    public void remove(String key) {
+        this.resolve();
+        super.remove(key);
+    }
+
+    @Override
+    public CompoundTag copy() {
+        this.resolve();
+        return super.copy();
+    }
+
+    @Override
+    public String toString() {
+        this.resolve();
+        return super.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        this.resolve();
+        if (o instanceof SnapshotTag) {
+            ((SnapshotTag) o).resolve();
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        this.resolve();
+        return super.hashCode();
+    }
+}
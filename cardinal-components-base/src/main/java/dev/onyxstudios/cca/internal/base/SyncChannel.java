@@ -0,0 +1,317 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.BaseSyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.DeltaSyncedComponent;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Synchronizes the components of a kind of provider using bundle packets,
+ * each carrying the data of several components of the same provider.
+ *
+ * <p> A bundle packet starts with the header written by {@link #writeHeader(Object, PacketByteBuf)},
+ * followed by a boolean indicating whether component types use the compact encoding
+ * of {@link ComponentsBaseNetworking}. The rest of the packet is a sequence of entries,
+ * each made of a component type, a boolean indicating whether the entry is a delta,
+ * the length of the component's data as an int, and the data itself as written by
+ * {@link BaseSyncedComponent#writeToPacket(PacketByteBuf)} or {@link DeltaSyncedComponent#writeDeltaToPacket(PacketByteBuf)}.
+ *
+ * <p> Only components relying on the default {@link SyncedComponent#syncWith(ServerPlayerEntity)} implementation
+ * for this kind of provider are bundled. Other components and clients unable to receive bundles
+ * are synchronized using {@code syncWith}.
+ *
+ * @param <P> the type of component providers synchronized through this channel
+ */
+public abstract class SyncChannel<P> {
+    /**
+     * Maximum size of a bundle, a little below the vanilla limit for custom payloads
+     */
+    public static final int MAX_BUNDLE_SIZE = 0x100000 - 0x1000;
+
+    private final Identifier bundlePacketId;
+    private final Class<? extends BaseSyncedComponent> defaultImplementation;
+    private final ClassValue<Boolean> usesDefaultSync = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("syncWith", ServerPlayerEntity.class).getDeclaringClass() == SyncChannel.this.defaultImplementation;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * @param bundlePacketId        the channel on which bundles are sent
+     * @param defaultImplementation the interface providing the default {@code syncWith} implementation for this kind of provider
+     */
+    protected SyncChannel(Identifier bundlePacketId, Class<? extends BaseSyncedComponent> defaultImplementation) {
+        this.bundlePacketId = bundlePacketId;
+        this.defaultImplementation = defaultImplementation;
+    }
+
+    public Identifier getBundlePacketId() {
+        return this.bundlePacketId;
+    }
+
+    /**
+     * Writes the data identifying {@code provider} on the client.
+     */
+    protected abstract void writeHeader(P provider, PacketByteBuf buf);
+
+    /**
+     * Calls {@code action} for every player that should receive updates of {@code provider}'s components.
+     */
+    protected abstract void forEachWatcher(P provider, Consumer<ServerPlayerEntity> action);
+
+    public boolean canBundle(SyncedComponent component) {
+        return this.defaultImplementation.isInstance(component) && this.usesDefaultSync.get(component.getClass());
+    }
+
+    /**
+     * Synchronizes the given components with every player watching {@code provider}.
+     *
+     * <p> Bundles are encoded once and shared by every watcher using the same component type encoding.
+     * {@link DeltaSyncedComponent}s only send their pending changes, which are then cleared.
+     */
+    public void sync(P provider, Collection<? extends SyncedComponent> components) {
+        Bundles bundles = new Bundles(provider, components, true);
+        this.forEachWatcher(provider, player -> this.syncWith(player, components, bundles));
+        for (SyncedComponent component : components) {
+            if (component instanceof DeltaSyncedComponent) {
+                ((DeltaSyncedComponent) component).clearDelta();
+            }
+        }
+    }
+
+    /**
+     * Synchronizes the full state of the given components of {@code provider} with {@code player},
+     * sending as few packets as possible.
+     */
+    public void syncWith(P provider, ServerPlayerEntity player, Collection<? extends SyncedComponent> components) {
+        this.syncWith(player, components, new Bundles(provider, components, false));
+    }
+
+    private void syncWith(ServerPlayerEntity player, Collection<? extends SyncedComponent> components, Bundles bundles) {
+        boolean canReceiveBundles = ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, this.bundlePacketId);
+        for (SyncedComponent component : components) {
+            if (!canReceiveBundles || !this.canBundle(component)) {
+                component.syncWith(player);
+            }
+        }
+        if (canReceiveBundles) {
+            for (PacketByteBuf bundle : bundles.get(ComponentsBaseNetworking.getMappedRawIds(player))) {
+                // each packet gets its own indices, the underlying data is shared
+                ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, this.bundlePacketId, new PacketByteBuf(bundle.duplicate()));
+            }
+        }
+    }
+
+    /**
+     * Writes bundle entries describing the full state of the given components to {@code buf}.
+     * Components that cannot be {@linkplain #canBundle(SyncedComponent) bundled} are skipped.
+     *
+     * @param mapped the number of raw ids known by the recipient, as returned by {@link ComponentsBaseNetworking#getMappedRawIds}
+     */
+    public void writeEntries(PacketByteBuf buf, Collection<? extends SyncedComponent> components, int mapped) {
+        for (SyncedComponent component : components) {
+            if (this.canBundle(component)) {
+                BaseSyncedComponent synced = (BaseSyncedComponent) component;
+                ComponentsBaseNetworking.writeComponentType(buf, synced.getComponentType(), mapped);
+                buf.writeBoolean(false);
+                int lengthIndex = buf.writerIndex();
+                buf.writeInt(0);
+                synced.writeToPacket(buf);
+                buf.setInt(lengthIndex, buf.writerIndex() - lengthIndex - Integer.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Encodes the bundles synchronizing the given components with a recipient knowing {@code mapped} raw ids,
+     * without sending them.
+     */
+    @VisibleForTesting
+    List<PacketByteBuf> encodeBundles(P provider, Collection<? extends SyncedComponent> components, boolean allowDelta, int mapped) {
+        return new Bundles(provider, components, allowDelta).get(mapped);
+    }
+
+    private PacketByteBuf createBundle(P provider, int mapped) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        this.writeHeader(provider, buf);
+        buf.writeBoolean(mapped >= 0);
+        return buf;
+    }
+
+    /**
+     * The bundles synchronizing a set of components, shared between all recipients.
+     *
+     * <p> The data of every component is only written once, the first time bundles are requested.
+     * Bundles are then assembled once per component type encoding, which generally means
+     * once for clients that received the raw id map, and once for the others.
+     */
+    private final class Bundles {
+        private final P provider;
+        private final boolean allowDelta;
+        private final List<BaseSyncedComponent> components = new ArrayList<>();
+        private final BitSet deltas = new BitSet();
+        private final IntList payloadEnds = new IntArrayList();
+        private final Int2ObjectMap<List<PacketByteBuf>> bundles = new Int2ObjectArrayMap<>();
+        @Nullable
+        private PacketByteBuf payloads;
+
+        Bundles(P provider, Collection<? extends SyncedComponent> components, boolean allowDelta) {
+            this.provider = provider;
+            this.allowDelta = allowDelta;
+            for (SyncedComponent component : components) {
+                if (SyncChannel.this.canBundle(component)) {
+                    this.components.add((BaseSyncedComponent) component);
+                }
+            }
+        }
+
+        List<PacketByteBuf> get(int mapped) {
+            List<PacketByteBuf> ret = this.bundles.get(mapped);
+            if (ret == null) {
+                ret = this.components.isEmpty() ? Collections.emptyList() : this.assemble(mapped);
+                this.bundles.put(mapped, ret);
+            }
+            return ret;
+        }
+
+        private PacketByteBuf getPayloads() {
+            if (this.payloads == null) {
+                PacketByteBuf payloads = new PacketByteBuf(Unpooled.buffer());
+                for (int i = 0; i < this.components.size(); i++) {
+                    BaseSyncedComponent component = this.components.get(i);
+                    if (this.allowDelta && component instanceof DeltaSyncedComponent && ((DeltaSyncedComponent) component).canSendDelta()) {
+                        this.deltas.set(i);
+                        ((DeltaSyncedComponent) component).writeDeltaToPacket(payloads);
+                    } else {
+                        component.writeToPacket(payloads);
+                    }
+                    this.payloadEnds.add(payloads.writerIndex());
+                }
+                this.payloads = payloads;
+            }
+            return this.payloads;
+        }
+
+        private List<PacketByteBuf> assemble(int mapped) {
+            PacketByteBuf payloads = this.getPayloads();
+            List<PacketByteBuf> ret = new ArrayList<>(1);
+            PacketByteBuf buf = SyncChannel.this.createBundle(this.provider, mapped);
+            int headerSize = buf.writerIndex();
+            int payloadStart = 0;
+            for (int i = 0; i < this.components.size(); i++) {
+                int payloadEnd = this.payloadEnds.getInt(i);
+                int entryStart = buf.writerIndex();
+                ComponentsBaseNetworking.writeComponentType(buf, this.components.get(i).getComponentType(), mapped);
+                buf.writeBoolean(this.deltas.get(i));
+                buf.writeInt(payloadEnd - payloadStart);
+                buf.writeBytes(payloads, payloadStart, payloadEnd - payloadStart);
+                payloadStart = payloadEnd;
+                if (buf.writerIndex() > MAX_BUNDLE_SIZE && entryStart > headerSize) {
+                    // the last entry does not fit, move it to the next bundle
+                    PacketByteBuf next = SyncChannel.this.createBundle(this.provider, mapped);
+                    next.writeBytes(buf, entryStart, buf.writerIndex() - entryStart);
+                    buf.writerIndex(entryStart);
+                    ret.add(buf);
+                    buf = next;
+                }
+            }
+            ret.add(buf);
+            return ret;
+        }
+    }
+
+    /**
+     * Reads the entries of a bundle packet, and processes them on the game thread.
+     *
+     * <p> This method must be called on the network thread, after the bundle's header has been read.
+     * Entries are sliced from {@code buffer} without copying, and decoded right away when possible.
+     *
+     * @param providerGetter a function called on the game thread to retrieve the provider described by the header, or {@code null}
+     */
+    public static void processBundle(PacketContext context, PacketByteBuf buffer, Supplier<?> providerGetter) {
+        boolean compact = buffer.readBoolean();
+        List<PendingComponentUpdate<?>> updates = readEntries(buffer, compact);
+        context.getTaskQueue().execute(() -> {
+            try {
+                Object provider = providerGetter.get();
+                for (PendingComponentUpdate<?> update : updates) {
+                    update.apply(context, provider);
+                }
+            } finally {
+                updates.forEach(PendingComponentUpdate::release);
+            }
+        });
+    }
+
+    /**
+     * Reads every bundle entry remaining in {@code buffer}.
+     *
+     * <p> The caller is responsible for {@linkplain PendingComponentUpdate#release() releasing} the returned updates.
+     */
+    public static List<PendingComponentUpdate<?>> readEntries(PacketByteBuf buffer, boolean compact) {
+        List<PendingComponentUpdate<?>> updates = new ArrayList<>();
+        try {
+            while (buffer.isReadable()) {
+                ComponentType<?> type = ComponentsBaseNetworking.readComponentType(buffer, compact);
+                boolean delta = buffer.readBoolean();
+                int length = buffer.readInt();
+                if (type == null) {
+                    buffer.skipBytes(length);
+                } else {
+                    updates.add(PendingComponentUpdate.read(type, new PacketByteBuf(buffer.readRetainedSlice(length)), delta));
+                }
+            }
+        } catch (RuntimeException e) {
+            updates.forEach(PendingComponentUpdate::release);
+            throw e;
+        }
+        return updates;
+    }
+}
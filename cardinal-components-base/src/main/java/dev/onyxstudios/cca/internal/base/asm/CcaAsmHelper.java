@@ -50,6 +50,11 @@ public final class CcaAsmHelper {
      * be checked and written to disk. Highly recommended when editing methods in this class.
      */
     public static final boolean DEBUG_CLASSES = Boolean.getBoolean("cca.debug.asm");
+    /**
+     * If {@code true}, generated component containers will only instantiate their static components
+     * the first time they are requested, instead of when the container itself is created.
+     */
+    public static final boolean LAZY_COMPONENTS = Boolean.getBoolean("cca.experimental.lazy_components");
     public static final int ASM_VERSION = Opcodes.ASM6;
     // existing references
     public static final String COMPONENT = Type.getInternalName(Component.class);
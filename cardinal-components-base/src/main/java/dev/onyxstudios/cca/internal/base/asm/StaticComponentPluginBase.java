@@ -33,7 +33,9 @@ import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
+import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 import nerdhub.cardinal.components.api.event.ComponentCallback;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
 import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
@@ -61,16 +63,27 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
     private static final String FOR_EACH_DESC;
     private static final String FAST_COMPONENT_CONTAINER_CTOR_DESC;
     private static final String CAN_BE_ASSIGNED_DESC;
+    private static final String GET_BY_SERIALIZED_ID_DESC;
+    private static final String COPY_INTO_DESC;
+    private static final String COPY_FROM_DESC;
+    private static final String GET_IF_CREATED_DESC;
 
     private static final String EVENT_DESC = Type.getDescriptor(Event.class);
+    private static final String BIT_SET = Type.getInternalName(BitSet.class);
+    private static final String BIT_SET_DESC = Type.getDescriptor(BitSet.class);
+    private static final String COMPONENT_TYPE_ARRAY_DESC = Type.getDescriptor(ComponentType[].class);
     private static final String EVENT$INVOKER_DESC;
 
     static {
         try {
             FOR_EACH_DESC = Type.getMethodDescriptor(ComponentContainer.class.getMethod("forEach", BiConsumer.class));
-            FAST_COMPONENT_CONTAINER_CTOR_DESC = Type.getConstructorDescriptor(FastComponentContainer.class.getConstructor(int.class));
+            FAST_COMPONENT_CONTAINER_CTOR_DESC = Type.getConstructorDescriptor(FastComponentContainer.class.getDeclaredConstructor(int.class, boolean.class, BitSet.class, ComponentType[].class));
             CAN_BE_ASSIGNED_DESC = Type.getMethodDescriptor(FastComponentContainer.class.getDeclaredMethod("canBeAssigned", ComponentType.class));
+            GET_BY_SERIALIZED_ID_DESC = Type.getMethodDescriptor(AbstractComponentContainer.class.getDeclaredMethod("getBySerializedId", String.class));
             EVENT$INVOKER_DESC = Type.getMethodDescriptor(Event.class.getMethod("invoker"));
+            COPY_INTO_DESC = Type.getMethodDescriptor(FastComponentContainer.class.getMethod("copyInto", FastComponentContainer.class));
+            COPY_FROM_DESC = Type.getMethodDescriptor(CopyableComponent.class.getMethod("copyFrom", Component.class));
+            GET_IF_CREATED_DESC = Type.getMethodDescriptor(FastComponentContainer.class.getDeclaredMethod("getIfCreated", ComponentType.class));
         } catch (NoSuchMethodException e) {
             throw new IllegalStateException("Failed to find one or more method descriptors", e);
         }
@@ -95,8 +108,19 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
      * <p>Instances of the returned class can be returned by {@link ComponentProvider#getStaticComponentContainer()}.
      * <strong>This method must not be called before the static component container interface has been defined!</strong>
      *
-     * <p>Generated component container classes will take an additional {@code int} as first argument to their
-     * constructors. That number corresponds to the expected dynamic size of the container (see {@link FastComponentContainer}).
+     * <p>Generated component container classes will take an additional {@code int} and {@code boolean} as first arguments
+     * to their constructors. Those correspond to the expected dynamic size of the container and to whether its dynamic
+     * components should use indexed storage (see {@link FastComponentContainer}).
+     *
+     * <p>If {@link CcaAsmHelper#LAZY_COMPONENTS lazy components} are enabled, the factory arguments are stored in the
+     * container and each component is only created the first time it is requested through the container's getters.
+     * Component fields are then volatile, and initialized in a synchronized method, so that every thread sees
+     * the same component. Iterations through {@code forEach} and cursors, as well as {@code copyInto},
+     * skip components that were never created.
+     *
+     * <p>If the component factories create {@link CopyableComponent}s, the generated class also overrides
+     * {@link FastComponentContainer#copyInto(FastComponentContainer)} to copy static components field to field
+     * when the target container has the same class.
      *
      * @param componentFactoryType the interface implemented by the component factories used to initialize this container
      * @param componentFactories   a map of {@link ComponentType} ids to factories for components of that type
@@ -110,12 +134,12 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         String containerImplName = CcaAsmHelper.STATIC_COMPONENT_CONTAINER + '_' + implNameSuffix;
         String componentFactoryName = Type.getInternalName(componentFactoryType);
         Method sam = CcaAsmHelper.findSam(componentFactoryType);
-        String samDescriptor = Type.getMethodDescriptor(sam);
         Class<?>[] factoryArgs = sam.getParameterTypes();
-        Type[] actualCtorArgs = new Type[factoryArgs.length + 1];
+        Type[] actualCtorArgs = new Type[factoryArgs.length + 2];
         actualCtorArgs[0] = Type.INT_TYPE;
+        actualCtorArgs[1] = Type.BOOLEAN_TYPE;
         for (int i = 0; i < factoryArgs.length; i++) {
-            actualCtorArgs[i + 1] = Type.getType(factoryArgs[i]);
+            actualCtorArgs[i + 2] = Type.getType(factoryArgs[i]);
         }
         String ctorDesc = Type.getMethodDescriptor(Type.VOID_TYPE, actualCtorArgs);
         ClassNode classNode = new ClassNode(CcaAsmHelper.ASM_VERSION);
@@ -130,6 +154,7 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
 
         String componentFieldDescriptor = Type.getDescriptor(Component.class);
         String factoryFieldDescriptor = Type.getDescriptor(componentFactoryType);
+        boolean lazy = CcaAsmHelper.LAZY_COMPONENTS;
 
 /*      TODO V3 enable static keyset optimization when dynamic components are no more
         classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, "componentTypes", "Ljava/util/Set;", null, null);
@@ -139,12 +164,61 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         keySet.visitEnd();
 */
 
+        /* static key set, shared by every instance */
+        classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "componentTypes", BIT_SET_DESC, null, null).visitEnd();
+        MethodVisitor clinit = classNode.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        clinit.visitTypeInsn(Opcodes.NEW, BIT_SET);
+        clinit.visitInsn(Opcodes.DUP);
+        clinit.visitMethodInsn(Opcodes.INVOKESPECIAL, BIT_SET, "<init>", "()V", false);
+        // stack: bitSet
+        for (Identifier identifier : componentFactories.keySet()) {
+            clinit.visitInsn(Opcodes.DUP);
+            clinit.visitLdcInsn(((ComponentRegistryImpl) ComponentRegistry.INSTANCE).assignRawId(identifier));
+            // stack: bitSet bitSet rawId
+            clinit.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BIT_SET, "set", "(I)V", false);
+            // stack: bitSet
+        }
+        clinit.visitFieldInsn(Opcodes.PUTSTATIC, containerImplName, "componentTypes", BIT_SET_DESC);
+        /* static component types in raw id order, used by cursors */
+        classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "componentTypeArray", COMPONENT_TYPE_ARRAY_DESC, null, null).visitEnd();
+        List<Identifier> sortedIds = new ArrayList<>(componentFactories.keySet());
+        sortedIds.sort(Comparator.comparingInt(((ComponentRegistryImpl) ComponentRegistry.INSTANCE)::assignRawId));
+        clinit.visitLdcInsn(sortedIds.size());
+        clinit.visitTypeInsn(Opcodes.ANEWARRAY, CcaAsmHelper.COMPONENT_TYPE);
+        // stack: array
+        for (int i = 0; i < sortedIds.size(); i++) {
+            clinit.visitInsn(Opcodes.DUP);
+            clinit.visitLdcInsn(i);
+            CcaAsmHelper.stackStaticComponentType(clinit, sortedIds.get(i));
+            // stack: array array index componentType
+            clinit.visitInsn(Opcodes.AASTORE);
+            // stack: array
+        }
+        clinit.visitFieldInsn(Opcodes.PUTSTATIC, containerImplName, "componentTypeArray", COMPONENT_TYPE_ARRAY_DESC);
+        clinit.visitInsn(Opcodes.RETURN);
+        clinit.visitEnd();
+
         MethodVisitor init = classNode.visitMethod(Opcodes.ACC_PUBLIC, "<init>", ctorDesc, null, null);
         init.visitCode();
         init.visitVarInsn(Opcodes.ALOAD, 0);
         init.visitVarInsn(Opcodes.ILOAD, 1);
+        init.visitVarInsn(Opcodes.ILOAD, 2);
+        init.visitFieldInsn(Opcodes.GETSTATIC, containerImplName, "componentTypes", BIT_SET_DESC);
+        init.visitFieldInsn(Opcodes.GETSTATIC, containerImplName, "componentTypeArray", COMPONENT_TYPE_ARRAY_DESC);
         init.visitMethodInsn(Opcodes.INVOKESPECIAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "<init>", FAST_COMPONENT_CONTAINER_CTOR_DESC, false);
 
+        if (lazy) {
+            // keep the factory arguments around for later component initialization
+            for (int i = 0; i < factoryArgs.length; i++) {
+                String argDescriptor = Type.getDescriptor(factoryArgs[i]);
+                classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, getFactoryArgFieldName(i), argDescriptor, null, null).visitEnd();
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                init.visitVarInsn(Opcodes.ALOAD, i + 3);    // first 3 args are for the container itself
+                init.visitFieldInsn(Opcodes.PUTFIELD, containerImplName, getFactoryArgFieldName(i), argDescriptor);
+            }
+        }
+
         MethodVisitor forEach = classNode.visitMethod(Opcodes.ACC_PUBLIC, "forEach", FOR_EACH_DESC, null, null);
 
         for (Identifier identifier : componentFactories.keySet()) {
@@ -159,51 +233,50 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
                 null
             ).visitEnd();
             classNode.visitField(
-                Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                lazy ? Opcodes.ACC_PRIVATE | Opcodes.ACC_VOLATILE : Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
                 fieldName,
                 componentFieldDescriptor,
                 null,
                 null
             ).visitEnd();
-            /* constructor initialization */
-            init.visitFieldInsn(Opcodes.GETSTATIC, containerImplName, factoryFieldName, factoryFieldDescriptor);
-            // stack: factory
-            for (int i = 0; i < factoryArgs.length; i++) {
-                init.visitVarInsn(Opcodes.ALOAD, i + 2);    // first 2 args are for the container itself
+            if (!lazy) {
+                /* constructor initialization */
+                stackNewComponent(init, containerImplName, componentFactoryName, factoryFieldName, factoryFieldDescriptor, sam, factoryArgs, false);
+                // stack: component
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                // stack: component <this>
+                init.visitInsn(Opcodes.SWAP);
+                // stack: <this> component
+                // store in the field
+                init.visitFieldInsn(Opcodes.PUTFIELD, containerImplName, fieldName, componentFieldDescriptor);
+                // <empty stack>
             }
-            // stack: factory factoryArgs...
-            // initialize the component by calling the factory
-            init.visitMethodInsn(Opcodes.INVOKEINTERFACE, componentFactoryName, sam.getName(), samDescriptor, true);
-            // stack: component
-            // check not null
-            init.visitInsn(Opcodes.DUP);
-            // stack: component component
-            init.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "getClass", "()Ljava/lang/Class;", false);
-            // stack: component garbage
-            init.visitInsn(Opcodes.POP);
-            // stack: component
-            init.visitVarInsn(Opcodes.ALOAD, 0);
-            // stack: component <this>
-            init.visitInsn(Opcodes.SWAP);
-            // stack: <this> component
-            // store in the field
-            init.visitFieldInsn(Opcodes.PUTFIELD, containerImplName, fieldName, componentFieldDescriptor);
-            // <empty stack>
-            init.visitVarInsn(Opcodes.ALOAD, 0);
-            // stack: <this>
-            CcaAsmHelper.stackStaticComponentType(init, identifier);
-            // stack: <this> componentType
-            init.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "addContainedType", "(L" + CcaAsmHelper.COMPONENT_TYPE + ";)V", false);
-            // <empty stack>
 
             /* forEach implementation */
-            forEach.visitVarInsn(Opcodes.ALOAD, 1);
-            // stack: biConsumer
-            CcaAsmHelper.stackStaticComponentType(forEach, identifier);
-            // stack: biConsumer componentType
-            stackStaticComponent(forEach, containerImplName, fieldName, componentFieldDescriptor);
-            // stack: biConsumer componentType component
-            forEach.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(BiConsumer.class), "accept", "(Ljava/lang/Object;Ljava/lang/Object;)V", true);
+            if (lazy) {
+                // skip components that have not been created yet
+                Label notCreated = new Label();
+                forEach.visitVarInsn(Opcodes.ALOAD, 0);
+                forEach.visitFieldInsn(Opcodes.GETFIELD, containerImplName, fieldName, componentFieldDescriptor);
+                forEach.visitVarInsn(Opcodes.ASTORE, 2);
+                forEach.visitVarInsn(Opcodes.ALOAD, 2);
+                forEach.visitJumpInsn(Opcodes.IFNULL, notCreated);
+                forEach.visitVarInsn(Opcodes.ALOAD, 1);
+                // stack: biConsumer
+                CcaAsmHelper.stackStaticComponentType(forEach, identifier);
+                forEach.visitVarInsn(Opcodes.ALOAD, 2);
+                // stack: biConsumer componentType component
+                forEach.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(BiConsumer.class), "accept", "(Ljava/lang/Object;Ljava/lang/Object;)V", true);
+                forEach.visitLabel(notCreated);
+            } else {
+                forEach.visitVarInsn(Opcodes.ALOAD, 1);
+                // stack: biConsumer
+                CcaAsmHelper.stackStaticComponentType(forEach, identifier);
+                // stack: biConsumer componentType
+                stackStaticComponent(forEach, containerImplName, identifier, false);
+                // stack: biConsumer componentType component
+                forEach.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(BiConsumer.class), "accept", "(Ljava/lang/Object;Ljava/lang/Object;)V", true);
+            }
 
             /* getter implementation */
             MethodVisitor getter = classNode.visitMethod(
@@ -213,7 +286,49 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
                 null,
                 null
             );
-            stackStaticComponent(getter, containerImplName, fieldName, componentFieldDescriptor);
+            getter.visitVarInsn(Opcodes.ALOAD, 0);
+            getter.visitFieldInsn(Opcodes.GETFIELD, containerImplName, fieldName, componentFieldDescriptor);
+            // stack: component
+            if (lazy) {
+                // double-checked initialization: the volatile read is the fast path
+                Label initialized = new Label();
+                getter.visitInsn(Opcodes.DUP);
+                getter.visitJumpInsn(Opcodes.IFNONNULL, initialized);
+                // stack: null
+                getter.visitInsn(Opcodes.POP);
+                getter.visitVarInsn(Opcodes.ALOAD, 0);
+                getter.visitMethodInsn(Opcodes.INVOKESPECIAL, containerImplName, getCreatorName(identifier), CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC, false);
+                // stack: component
+                getter.visitLabel(initialized);
+
+                /* synchronized creator implementation */
+                MethodVisitor creator = classNode.visitMethod(
+                    Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNCHRONIZED,
+                    getCreatorName(identifier),
+                    CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC,
+                    null,
+                    null
+                );
+                Label created = new Label();
+                creator.visitVarInsn(Opcodes.ALOAD, 0);
+                creator.visitFieldInsn(Opcodes.GETFIELD, containerImplName, fieldName, componentFieldDescriptor);
+                // stack: component
+                creator.visitInsn(Opcodes.DUP);
+                creator.visitJumpInsn(Opcodes.IFNONNULL, created);
+                // stack: null
+                creator.visitInsn(Opcodes.POP);
+                creator.visitVarInsn(Opcodes.ALOAD, 0);
+                // stack: <this>
+                stackNewComponent(creator, containerImplName, componentFactoryName, factoryFieldName, factoryFieldDescriptor, sam, factoryArgs, true);
+                // stack: <this> component
+                creator.visitInsn(Opcodes.DUP_X1);
+                // stack: component <this> component
+                creator.visitFieldInsn(Opcodes.PUTFIELD, containerImplName, fieldName, componentFieldDescriptor);
+                // stack: component
+                creator.visitLabel(created);
+                creator.visitInsn(Opcodes.ARETURN);
+                creator.visitEnd();
+            }
             getter.visitInsn(Opcodes.ARETURN);
             getter.visitEnd();
         }
@@ -226,7 +341,14 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         forEach.visitEnd();
 
         if (!componentFactories.isEmpty()) {
-            generateLookupMethods(componentFactories.keySet(), containerImplName, classNode, componentFieldDescriptor);
+            generateLookupMethods(componentFactories.keySet(), containerImplName, classNode, lazy);
+            if (lazy) {
+                generateCreatedComponentLookup(componentFactories.keySet(), containerImplName, classNode);
+            }
+            generateSerializedIdLookup(componentFactories.keySet(), containerImplName, classNode, lazy);
+            if (CopyableComponent.class.isAssignableFrom(sam.getReturnType())) {
+                generateCopyInto(componentFactories.keySet(), containerImplName, classNode, lazy);
+            }
         }
 
         @SuppressWarnings("unchecked") Class<? extends ComponentContainer<?>> ret = (Class<? extends ComponentContainer<?>>) CcaAsmHelper.generateClass(classNode);
@@ -242,7 +364,7 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         return ret;
     }
 
-    private static void generateLookupMethods(Set<Identifier> components, String containerImplName, ClassNode classNode, String componentFieldDescriptor) {
+    private static void generateLookupMethods(Set<Identifier> components, String containerImplName, ClassNode classNode, boolean lazy) {
         MethodVisitor canBeAssigned = classNode.visitMethod(Opcodes.ACC_PROTECTED, "canBeAssigned", CAN_BE_ASSIGNED_DESC, null, null);
         MethodVisitor get = classNode.visitMethod(Opcodes.ACC_PUBLIC, "get", CcaAsmHelper.GET_DESC, null, null);
         canBeAssigned.visitVarInsn(Opcodes.ALOAD, 1);
@@ -284,7 +406,11 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         for (Int2ObjectMap.Entry<Identifier> entry : raw2Id.int2ObjectEntrySet()) {
             // stack[get]: <this>
             get.visitLabel(getLabels[entry.getIntKey()]);
-            get.visitFieldInsn(Opcodes.GETFIELD, containerImplName, CcaAsmHelper.getJavaIdentifierName(entry.getValue()), componentFieldDescriptor);
+            if (lazy) {
+                get.visitMethodInsn(Opcodes.INVOKEVIRTUAL, containerImplName, CcaAsmHelper.getStaticStorageGetterName(entry.getValue()), CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC, false);
+            } else {
+                get.visitFieldInsn(Opcodes.GETFIELD, containerImplName, CcaAsmHelper.getJavaIdentifierName(entry.getValue()), Type.getDescriptor(Component.class));
+            }
             // stack[get]: component
             get.visitInsn(Opcodes.ARETURN);
         }
@@ -303,16 +429,209 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         get.visitEnd();
     }
 
+    /**
+     * Generates an override of {@link FastComponentContainer#getIfCreated(ComponentType)} that reads
+     * lazily initialized component fields without creating the components.
+     */
+    private static void generateCreatedComponentLookup(Set<Identifier> components, String containerImplName, ClassNode classNode) {
+        MethodVisitor getIfCreated = classNode.visitMethod(Opcodes.ACC_PUBLIC, "getIfCreated", GET_IF_CREATED_DESC, null, null);
+        getIfCreated.visitVarInsn(Opcodes.ALOAD, 1);
+        getIfCreated.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CcaAsmHelper.COMPONENT_TYPE, "getRawId", "()I", false);
+        // stack: rawId
+        Label defaultCase = new Label();
+        Int2ObjectSortedMap<Identifier> raw2Id = new Int2ObjectRBTreeMap<>();
+        for (Identifier id : components) {
+            raw2Id.put(((ComponentRegistryImpl) ComponentRegistry.INSTANCE).assignRawId(id), id);
+        }
+        int nbCases = raw2Id.lastIntKey() + 1;  // 0 is a valid raw id
+        Label[] labels = new Label[nbCases];
+        for (int i = 0; i < nbCases; i++) {
+            labels[i] = raw2Id.containsKey(i) ? new Label() : defaultCase;
+        }
+        getIfCreated.visitTableSwitchInsn(0, nbCases - 1, defaultCase, labels);
+        // <empty stack>
+        for (Int2ObjectMap.Entry<Identifier> entry : raw2Id.int2ObjectEntrySet()) {
+            getIfCreated.visitLabel(labels[entry.getIntKey()]);
+            getIfCreated.visitVarInsn(Opcodes.ALOAD, 0);
+            getIfCreated.visitFieldInsn(Opcodes.GETFIELD, containerImplName, CcaAsmHelper.getJavaIdentifierName(entry.getValue()), Type.getDescriptor(Component.class));
+            // stack: component (may be null)
+            getIfCreated.visitInsn(Opcodes.ARETURN);
+        }
+        getIfCreated.visitLabel(defaultCase);
+        getIfCreated.visitVarInsn(Opcodes.ALOAD, 0);
+        getIfCreated.visitVarInsn(Opcodes.ALOAD, 1);
+        getIfCreated.visitMethodInsn(Opcodes.INVOKESPECIAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "getIfCreated", GET_IF_CREATED_DESC, false);
+        getIfCreated.visitInsn(Opcodes.ARETURN);
+        getIfCreated.visitEnd();
+    }
+
+    /**
+     * Generates an override of {@link AbstractComponentContainer#getBySerializedId(String)}, equivalent to a {@code switch}
+     * statement over the serialized ids of static components.
+     */
+    private static void generateSerializedIdLookup(Set<Identifier> components, String containerImplName, ClassNode classNode, boolean lazy) {
+        MethodVisitor lookup = classNode.visitMethod(Opcodes.ACC_PROTECTED, "getBySerializedId", GET_BY_SERIALIZED_ID_DESC, null, null);
+        Int2ObjectSortedMap<List<Identifier>> hash2Ids = new Int2ObjectRBTreeMap<>();
+        for (Identifier id : components) {
+            int hash = id.toString().hashCode();
+            List<Identifier> ids = hash2Ids.get(hash);
+            if (ids == null) {
+                ids = new ArrayList<>(1);
+                hash2Ids.put(hash, ids);
+            }
+            ids.add(id);
+        }
+        int[] hashes = hash2Ids.keySet().toIntArray();
+        Label[] hashLabels = new Label[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            hashLabels[i] = new Label();
+        }
+        Label defaultCase = new Label();
+        lookup.visitVarInsn(Opcodes.ALOAD, 1);
+        // stack: serializedId
+        lookup.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
+        // stack: hash
+        lookup.visitLookupSwitchInsn(defaultCase, hashes, hashLabels);
+        // <empty stack>
+        for (int i = 0; i < hashes.length; i++) {
+            lookup.visitLabel(hashLabels[i]);
+            for (Identifier id : hash2Ids.get(hashes[i])) {
+                Label nextId = new Label();
+                lookup.visitVarInsn(Opcodes.ALOAD, 1);
+                lookup.visitLdcInsn(id.toString());
+                // stack: serializedId staticId
+                lookup.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+                // stack: equals
+                lookup.visitJumpInsn(Opcodes.IFEQ, nextId);
+                stackStaticComponent(lookup, containerImplName, id, lazy);
+                // stack: component
+                lookup.visitInsn(Opcodes.ARETURN);
+                lookup.visitLabel(nextId);
+            }
+            lookup.visitJumpInsn(Opcodes.GOTO, defaultCase);
+        }
+        lookup.visitLabel(defaultCase);
+        // <empty stack>
+        lookup.visitVarInsn(Opcodes.ALOAD, 0);
+        lookup.visitVarInsn(Opcodes.ALOAD, 1);
+        lookup.visitMethodInsn(Opcodes.INVOKESPECIAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "getBySerializedId", GET_BY_SERIALIZED_ID_DESC, false);
+        lookup.visitInsn(Opcodes.ARETURN);
+        lookup.visitEnd();
+    }
+
+    /**
+     * Generates an override of {@link FastComponentContainer#copyInto(FastComponentContainer)} that copies
+     * static components directly into the matching fields of the target, if it is an instance of the same class.
+     *
+     * <p> With lazy components, only components created in the source container are copied, creating the target's
+     * component if needed. Target components matching uncreated source components are left untouched, so copying
+     * a container never creates components that were never requested.
+     */
+    private static void generateCopyInto(Set<Identifier> components, String containerImplName, ClassNode classNode, boolean lazy) {
+        String copyableComponent = Type.getInternalName(CopyableComponent.class);
+        MethodVisitor copyInto = classNode.visitMethod(Opcodes.ACC_PUBLIC, "copyInto", COPY_INTO_DESC, null, null);
+        Label otherClass = new Label();
+        copyInto.visitVarInsn(Opcodes.ALOAD, 1);
+        // stack: target
+        copyInto.visitTypeInsn(Opcodes.INSTANCEOF, containerImplName);
+        // stack: isSameClass (generated container classes are final)
+        copyInto.visitJumpInsn(Opcodes.IFEQ, otherClass);
+        copyInto.visitVarInsn(Opcodes.ALOAD, 1);
+        copyInto.visitTypeInsn(Opcodes.CHECKCAST, containerImplName);
+        copyInto.visitVarInsn(Opcodes.ASTORE, 2);
+        // <empty stack>
+        for (Identifier id : components) {
+            if (lazy) {
+                // read the source field directly, uncreated components stay uncreated
+                Label notCreated = new Label();
+                copyInto.visitVarInsn(Opcodes.ALOAD, 0);
+                copyInto.visitFieldInsn(Opcodes.GETFIELD, containerImplName, CcaAsmHelper.getJavaIdentifierName(id), Type.getDescriptor(Component.class));
+                copyInto.visitVarInsn(Opcodes.ASTORE, 3);
+                copyInto.visitVarInsn(Opcodes.ALOAD, 3);
+                copyInto.visitJumpInsn(Opcodes.IFNULL, notCreated);
+                stackStaticComponent(copyInto, containerImplName, id, true, 2);
+                // stack: targetComponent
+                copyInto.visitTypeInsn(Opcodes.CHECKCAST, copyableComponent);
+                copyInto.visitVarInsn(Opcodes.ALOAD, 3);
+                // stack: targetComponent component
+                copyInto.visitMethodInsn(Opcodes.INVOKEINTERFACE, copyableComponent, "copyFrom", COPY_FROM_DESC, true);
+                copyInto.visitLabel(notCreated);
+                // <empty stack>
+            } else {
+                stackStaticComponent(copyInto, containerImplName, id, false, 2);
+                // stack: targetComponent
+                copyInto.visitTypeInsn(Opcodes.CHECKCAST, copyableComponent);
+                stackStaticComponent(copyInto, containerImplName, id, false, 0);
+                // stack: targetComponent component
+                copyInto.visitMethodInsn(Opcodes.INVOKEINTERFACE, copyableComponent, "copyFrom", COPY_FROM_DESC, true);
+                // <empty stack>
+            }
+        }
+        copyInto.visitVarInsn(Opcodes.ALOAD, 0);
+        copyInto.visitVarInsn(Opcodes.ALOAD, 1);
+        copyInto.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "copyDynamicComponentsInto", COPY_INTO_DESC, false);
+        copyInto.visitInsn(Opcodes.RETURN);
+        copyInto.visitLabel(otherClass);
+        // <empty stack>
+        copyInto.visitVarInsn(Opcodes.ALOAD, 0);
+        copyInto.visitVarInsn(Opcodes.ALOAD, 1);
+        copyInto.visitMethodInsn(Opcodes.INVOKESPECIAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "copyInto", COPY_INTO_DESC, false);
+        copyInto.visitInsn(Opcodes.RETURN);
+        copyInto.visitEnd();
+    }
+
     @NotNull
     private static String getFactoryFieldName(Identifier identifier) {
         return CcaAsmHelper.getJavaIdentifierName(identifier) + "$factory";
     }
 
+    @NotNull
+    private static String getCreatorName(Identifier identifier) {
+        return "create$" + CcaAsmHelper.getJavaIdentifierName(identifier);
+    }
+
+    @NotNull
+    private static String getFactoryArgFieldName(int index) {
+        return "factoryArg$" + index;
+    }
+
+    /**
+     * Stacks a new component, created using the static factory field and the container's factory arguments.
+     *
+     * @param fromFields if {@code true}, factory arguments are read from the container's fields,
+     *                   otherwise they are read from the constructor's parameters
+     */
+    private static void stackNewComponent(MethodVisitor method, String containerImplName, String componentFactoryName, String factoryFieldName, String factoryFieldDescriptor, Method sam, Class<?>[] factoryArgs, boolean fromFields) {
+        method.visitFieldInsn(Opcodes.GETSTATIC, containerImplName, factoryFieldName, factoryFieldDescriptor);
+        // stack: factory
+        for (int i = 0; i < factoryArgs.length; i++) {
+            if (fromFields) {
+                method.visitVarInsn(Opcodes.ALOAD, 0);
+                method.visitFieldInsn(Opcodes.GETFIELD, containerImplName, getFactoryArgFieldName(i), Type.getDescriptor(factoryArgs[i]));
+            } else {
+                method.visitVarInsn(Opcodes.ALOAD, i + 3);    // first 3 args are for the container itself
+            }
+        }
+        // stack: factory factoryArgs...
+        // initialize the component by calling the factory
+        method.visitMethodInsn(Opcodes.INVOKEINTERFACE, componentFactoryName, sam.getName(), Type.getMethodDescriptor(sam), true);
+        // stack: component
+        // check not null
+        method.visitInsn(Opcodes.DUP);
+        // stack: component component
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "getClass", "()Ljava/lang/Class;", false);
+        // stack: component garbage
+        method.visitInsn(Opcodes.POP);
+        // stack: component
+    }
+
     /**
      * Defines an implementation of {@code I} which creates component containers of
      * the given implementation type, using an argument of the given {@code factoryArg} type.
      *
      * <p>The generated class has a single constructor, taking {@code eventCount} parameters of type {@link Event}.
+     * Every time it creates a container, the generated factory records the number and layout of dynamically added components,
+     * to presize and pick the storage of the next containers it creates.
      *
      * @param implNameSuffix       a unique suffix for the generated class
      * @param containerFactoryType the factory interface that is to be implemented by the returned class
@@ -355,9 +674,9 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
             componentCallbackDesc = null;
         }
 
-        // constructor has one more argument, for expected size
-        if (constructors[0].getParameterCount() != factorySam.getParameterCount() + 1) {
-            throw new IllegalArgumentException("Factory SAM parameter count should be one less than container constructor (found " + factorySam + " for " + constructors[0] + ")");
+        // constructor has two more arguments, for expected size and storage layout
+        if (constructors[0].getParameterCount() != factorySam.getParameterCount() + 2) {
+            throw new IllegalArgumentException("Factory SAM parameter count should be two less than container constructor (found " + factorySam + " for " + constructors[0] + ")");
         }
         Type[] factoryArgs;
         Type[] callbackArgs;
@@ -397,6 +716,7 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         }
         ctorDesc.append(")V");
         containerFactoryWriter.visitField(Opcodes.ACC_PRIVATE, "expectedSize", "I", null, 0);
+        containerFactoryWriter.visitField(Opcodes.ACC_PRIVATE, "indexedStorage", "Z", null, 0);
         MethodVisitor init = containerFactoryWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", ctorDesc.toString(), null, null);
         init.visitVarInsn(Opcodes.ALOAD, 0);
         init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
@@ -413,14 +733,16 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         createContainer.visitVarInsn(Opcodes.ALOAD, 0);
         // stack: <this>
         createContainer.visitFieldInsn(Opcodes.GETFIELD, factoryImplName, "expectedSize", "I");
-        // stack: this.expectedSize
+        createContainer.visitVarInsn(Opcodes.ALOAD, 0);
+        createContainer.visitFieldInsn(Opcodes.GETFIELD, factoryImplName, "indexedStorage", "Z");
+        // stack: this.expectedSize this.indexedStorage
         for (int i2 = 0; i2 < actualFactoryParams.length; i2++) {
             createContainer.visitVarInsn(factoryArgs[i2].getOpcode(Opcodes.ILOAD), i2 + 1);
             if (factoryArgs[i2].getSort() == Type.OBJECT || factoryArgs[i2].getSort() == Type.ARRAY) {
                 createContainer.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(actualFactoryParams[i2]));
             }
         }
-        // stack: this.expectedSize actualFactoryArgs...
+        // stack: this.expectedSize this.indexedStorage actualFactoryArgs...
         createContainer.visitMethodInsn(Opcodes.INVOKESPECIAL, containerImplName, "<init>", containerCtorDesc, false);
         // stack: container
         if (componentCallbackType != null) {
@@ -456,6 +778,15 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
             createContainer.visitInsn(Opcodes.SWAP);
             // stack: container <this> container.size
             createContainer.visitFieldInsn(Opcodes.PUTFIELD, factoryImplName, "expectedSize", "I");
+            // stack: container
+            createContainer.visitInsn(Opcodes.DUP);
+            // stack: container container
+            createContainer.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CcaAsmHelper.DYNAMIC_COMPONENT_CONTAINER_IMPL, "prefersIndexedStorage", "()Z", false);
+            // stack: container container.prefersIndexedStorage
+            createContainer.visitVarInsn(Opcodes.ALOAD, 0);
+            createContainer.visitInsn(Opcodes.SWAP);
+            // stack: container <this> container.prefersIndexedStorage
+            createContainer.visitFieldInsn(Opcodes.PUTFIELD, factoryImplName, "indexedStorage", "Z");
         }
         createContainer.visitInsn(Opcodes.ARETURN);
         createContainer.visitEnd();
@@ -472,9 +803,20 @@ public abstract class StaticComponentPluginBase<T, I, F> extends LazyDispatcher
         }
     }
 
-    private static void stackStaticComponent(MethodVisitor method, String containerImplName, String fieldName, String fieldDescriptor) {
-        method.visitVarInsn(Opcodes.ALOAD, 0);
-        method.visitFieldInsn(Opcodes.GETFIELD, containerImplName, fieldName, fieldDescriptor);
+    private static void stackStaticComponent(MethodVisitor method, String containerImplName, Identifier identifier, boolean lazy) {
+        stackStaticComponent(method, containerImplName, identifier, lazy, 0);
+    }
+
+    /**
+     * Pushes a static component of the container held by the given local variable on the stack.
+     */
+    private static void stackStaticComponent(MethodVisitor method, String containerImplName, Identifier identifier, boolean lazy, int containerVar) {
+        method.visitVarInsn(Opcodes.ALOAD, containerVar);
+        if (lazy) {
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, containerImplName, CcaAsmHelper.getStaticStorageGetterName(identifier), CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC, false);
+        } else {
+            method.visitFieldInsn(Opcodes.GETFIELD, containerImplName, CcaAsmHelper.getJavaIdentifierName(identifier), Type.getDescriptor(Component.class));
+        }
     }
 
     public Class<? extends DynamicContainerFactory<T, ?>> getContainerFactoryClass() {
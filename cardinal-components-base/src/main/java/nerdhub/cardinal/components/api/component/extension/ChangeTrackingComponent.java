@@ -0,0 +1,63 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.component.extension;
+
+import nerdhub.cardinal.components.api.component.Component;
+import net.minecraft.nbt.CompoundTag;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A component that keeps track of changes to its serializable state.
+ *
+ * <p> Component providers may use the change count to avoid serializing data
+ * that did not change since it was last saved. Components that do not implement
+ * this interface are assumed to change all the time.
+ * Example: <pre>{@code
+ *      private int value;
+ *      private int changeCount;
+ *
+ *      public void setValue(int newValue) {
+ *          this.value = newValue;
+ *          this.changeCount++;
+ *      }
+ *
+ *      public int getChangeCount() {
+ *          return this.changeCount;
+ *      }
+ * }</pre>
+ *
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public interface ChangeTrackingComponent extends Component {
+    /**
+     * Returns a counter of the changes made to this component's serializable state.
+     *
+     * <p> The returned value must change every time the data written by
+     * {@link #toTag(CompoundTag)} may change, typically by being incremented.
+     * Its absolute value is otherwise meaningless.
+     *
+     * @return the current value of this component's change counter
+     */
+    int getChangeCount();
+}
@@ -0,0 +1,49 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.component.extension;
+
+import nerdhub.cardinal.components.api.component.Component;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A component that can summarize its state in a fingerprint, letting callers
+ * tell unequal components apart without comparing them field by field.
+ *
+ * <p> Item stacks whose components all implement both this interface and {@link ChangeTrackingComponent}
+ * compare their components' combined fingerprints before comparing the components themselves.
+ * The combined fingerprint is only computed again after one of the components changed.
+ *
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public interface FingerprintedComponent extends Component {
+    /**
+     * Returns a fingerprint of this component's state.
+     *
+     * <p> Like {@link Object#hashCode()}, two components that are {@linkplain #isComponentEqual(Component) equal}
+     * must return the same fingerprint, while unequal components should return different ones.
+     *
+     * @return a fingerprint of this component's current state
+     */
+    long getFingerprint();
+}
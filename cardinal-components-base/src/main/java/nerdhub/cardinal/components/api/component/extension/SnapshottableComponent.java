@@ -0,0 +1,73 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.component.extension;
+
+import nerdhub.cardinal.components.api.component.Component;
+import net.minecraft.nbt.CompoundTag;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A component that can capture its serializable state, to be written later.
+ *
+ * <p> When a chunk, an entity or a world is saved, component providers may take
+ * a snapshot of such a component on the server thread, and encode it to NBT
+ * on the thread that actually writes the data to disk.
+ * Implementations should make {@link #createSnapshot()} as cheap as possible,
+ * typically by copying references to immutable data. Example: <pre>{@code
+ *      private ImmutableMap<UUID, Claim> claims;
+ *
+ *      public Snapshot createSnapshot() {
+ *          ImmutableMap<UUID, Claim> claims = this.claims;
+ *          return tag -> writeClaims(claims, tag);
+ *      }
+ * }</pre>
+ *
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public interface SnapshottableComponent extends Component {
+    /**
+     * Captures the current serializable state of this component.
+     *
+     * <p> This method is called on the thread owning this component.
+     *
+     * @return a snapshot writing the same data as {@link #toTag(CompoundTag)} would have at the time of the call
+     */
+    Snapshot createSnapshot();
+
+    /**
+     * An immutable capture of a component's serializable state.
+     */
+    @FunctionalInterface
+    interface Snapshot {
+        /**
+         * Writes the captured state to {@code tag}.
+         *
+         * <p> This method may be called from any thread, at most once per snapshot.
+         *
+         * @param tag a tag to write the component's data into
+         * @return {@code tag}
+         */
+        CompoundTag toTag(CompoundTag tag);
+    }
+}
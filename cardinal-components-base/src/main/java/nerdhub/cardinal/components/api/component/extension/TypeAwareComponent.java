@@ -22,9 +22,12 @@
  */
 package nerdhub.cardinal.components.api.component.extension;
 
+import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
@@ -55,9 +58,27 @@ public interface TypeAwareComponent extends Component {
      */
     ComponentType<?> getComponentType();
 
+    /**
+     * Finds the component type under which {@code component} is attached to {@code holder}.
+     *
+     * <p> When {@code holder} stores its components in a {@link FastComponentContainer}, the component is found
+     * by comparing it with the container's fields and storage, without going through the component registry.
+     * Otherwise, every component type of {@code holder} is queried.
+     */
     @SuppressWarnings("unchecked")
     @ApiStatus.Experimental
     static <C extends Component> ComponentType<? super C> lookupComponentType(ComponentProvider holder, C component) {
+        if (holder instanceof InternalComponentProvider) {
+            ComponentContainer<?> components = ((InternalComponentProvider) holder).getComponentContainer();
+            if (components instanceof FastComponentContainer) {
+                ComponentType<?> type = ((FastComponentContainer<?>) components).findType(component);
+                if (type == null) {
+                    throw new IllegalStateException("getComponentProvider() returned invalid value");
+                }
+                // unchecked cast but safe because the container holds the component under that type
+                return (ComponentType<? super C>) type;
+            }
+        }
         ComponentType<? super C> selfType = null;
         for (ComponentType<?> componentType : holder.getComponentTypes()) {
             if (componentType.getNullable(holder) == component) {
@@ -22,6 +22,7 @@
  */
 package nerdhub.cardinal.components.api.util.container;
 
+import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
@@ -30,6 +31,7 @@ import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.ApiStatus;
 
 import javax.annotation.Nullable;
 import java.util.AbstractMap;
@@ -51,6 +53,23 @@ import java.util.AbstractMap;
  * @see FastComponentContainer
  */
 public abstract class AbstractComponentContainer<C extends Component> extends AbstractMap<ComponentType<?>, C> implements ComponentContainer<C> {
+    /**
+     * The key under which component data is stored in a provider's tag
+     */
+    @ApiStatus.Internal
+    public static final String NBT_KEY = "cardinal_components";
+    /**
+     * The key under which the version of the component data format is stored in a provider's tag.
+     * Data written in the legacy list format has no version.
+     */
+    @ApiStatus.Internal
+    public static final String NBT_VERSION_KEY = "cardinal_components_version";
+    /**
+     * The version of the compact format, in which each component's data is stored under its serialized id
+     */
+    @ApiStatus.Internal
+    public static final int NBT_VERSION = 1;
+    private static final String LEGACY_ID_KEY = "componentId";
 
     @SuppressWarnings("deprecation")    // overriding the deprecated method to avoid the compiler's warning...
     @Deprecated
@@ -86,51 +105,99 @@ public abstract class AbstractComponentContainer<C extends Component> extends Ab
     /**
      * {@inheritDoc}
      *
-     * @implSpec This implementation first checks if {@code tag} has a tag list
-     * mapped to the "cardinal_components" key; if not it returns immediately.
+     * @implSpec This implementation first checks if {@code tag} has a compound tag
+     * mapped to the "cardinal_components" key. If so, it iterates over that compound's keys,
+     * and passes the associated tags to the {@code fromTag} method of the component which type
+     * has the same {@linkplain #getBySerializedId(String) serialized id}.
+     * Otherwise, it checks if {@code tag} has a tag list mapped to the same key, as written
+     * by older versions; if not it returns immediately.
      * Then it iterates over the list's tags, casts them to {@code CompoundTag},
      * and passes them to the associated component's {@code fromTag} method.
-     * If this container lacks a corresponding component for a serialized component
-     * type, the component tag is skipped.
+     * In both formats, if this container lacks a corresponding component for a serialized component
+     * type, the component tag is skipped. Data written by a newer format version is read on a best-effort basis.
      */
     @Override
     public void fromTag(CompoundTag tag) {
-        if(tag.contains("cardinal_components", NbtType.LIST)) {
-            ListTag componentList = tag.getList("cardinal_components", NbtType.COMPOUND);
+        if (tag.contains(NBT_KEY, NbtType.COMPOUND)) {
+            int version = tag.getInt(NBT_VERSION_KEY);
+            if (version > NBT_VERSION) {
+                ComponentsInternals.warnUnsupportedNbtVersion(version);
+            }
+            CompoundTag componentMap = tag.getCompound(NBT_KEY);
+            for (String key : componentMap.getKeys()) {
+                Component component = this.getBySerializedId(key);
+                if (component != null) {
+                    component.fromTag(componentMap.getCompound(key));
+                }
+            }
+        } else if(tag.contains(NBT_KEY, NbtType.LIST)) {
+            ListTag componentList = tag.getList(NBT_KEY, NbtType.COMPOUND);
             for (int i = 0; i < componentList.size(); i++) {
                 CompoundTag nbt = componentList.getCompound(i);
-                ComponentType<?> type = ComponentRegistry.INSTANCE.get(new Identifier(nbt.getString("componentId")));
-                if (type != null) {
-                    Component component = this.get(type);
-                    if (component != null) {
-                        component.fromTag(nbt);
-                    }
+                Component component = this.getBySerializedId(nbt.getString(LEGACY_ID_KEY));
+                if (component != null) {
+                    component.fromTag(nbt);
                 }
             }
         }
     }
 
+    /**
+     * Returns the component held by this container which type has the given serialized id.
+     *
+     * @param serializedId the string representation of a component type's id
+     * @return the corresponding component, or {@code null} if this container has no such component
+     * @see ComponentType#getSerializedId()
+     */
+    @Nullable
+    protected Component getBySerializedId(String serializedId) {  // overridden by generated subclasses
+        Identifier id = Identifier.tryParse(serializedId);
+        ComponentType<?> type = id == null ? null : ComponentRegistry.INSTANCE.get(id);
+        return type == null ? null : this.get(type);
+    }
+
     /**
      * {@inheritDoc}
      *
      * @implSpec This implementation first checks if the container is empty; if so it
-     * returns immediately. Then, it iterates over this container's mappings, and creates
-     * a compound tag for each component. The component type's identifier is stored
-     * in that tag using the "componentId" key. The tag is then passed to the component's
-     * {@link Component#toTag(CompoundTag)} method. Every such serialized component is appended
-     * to a {@code ListTag}, that is added to the given tag using the "cardinal_components" key.
+     * returns immediately. Then, it iterates over this container's mappings, and passes a new
+     * compound tag to each component's {@link Component#toTag(CompoundTag)} method.
+     * Every such serialized component is put into a {@code CompoundTag} using the component type's
+     * identifier as key, and that compound is added to the given tag using the "cardinal_components" key,
+     * along with the {@linkplain #NBT_VERSION format version} under the "cardinal_components_version" key.
+     *
+     * <p>If the {@code cca.legacy_nbt_format} system property is set to {@code true}, the component tags are instead
+     * created with their type's identifier stored using the "componentId" key, then appended to a {@code ListTag}.
      */
     @Override
     public CompoundTag toTag(CompoundTag tag) {
         if(!this.isEmpty()) {
-            ListTag componentList = new ListTag();
-            this.forEach((type, component) -> {
-                CompoundTag componentTag = new CompoundTag();
-                componentTag.putString("componentId", type.getId().toString());
-                componentList.add(component.toTag(componentTag));
-            });
-            tag.put("cardinal_components", componentList);
+            if (ComponentsInternals.useLegacyNbtFormat()) {
+                ListTag componentList = new ListTag();
+                this.forEach((type, component) -> {
+                    CompoundTag componentTag = new CompoundTag();
+                    componentTag.putString(LEGACY_ID_KEY, type.getSerializedId());
+                    componentList.add(component.toTag(componentTag));
+                });
+                tag.put(NBT_KEY, componentList);
+            } else {
+                CompoundTag componentMap = new CompoundTag();
+                this.forEach((type, component) -> componentMap.put(type.getSerializedId(), component.toTag(new CompoundTag())));
+                putComponentMap(tag, componentMap);
+            }
         }
         return tag;
     }
+
+    /**
+     * Stores a compound of serialized components, keyed by serialized id, into a provider's tag.
+     *
+     * @param tag          the provider's tag
+     * @param componentMap the serialized components
+     */
+    @ApiStatus.Internal
+    public static void putComponentMap(CompoundTag tag, CompoundTag componentMap) {
+        tag.put(NBT_KEY, componentMap);
+        tag.putInt(NBT_VERSION_KEY, NBT_VERSION);
+    }
 }
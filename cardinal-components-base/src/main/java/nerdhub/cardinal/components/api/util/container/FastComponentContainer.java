@@ -27,9 +27,9 @@ import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
 import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
-import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -39,6 +39,10 @@ import java.util.function.BiConsumer;
  * A {@link Component} container with a fast, small-footprint implementation
  * based on {@link Int2ObjectMap}
  *
+ * <p> Dynamically added components can alternatively be stored in an array indexed
+ * by {@link ComponentType#getRawId() raw id}, similarly to {@code IndexedComponentContainer}.
+ * This storage offers constant time lookups, but is only memory-efficient for small and dense sets of component types.
+ *
  * <p> <b>Note that this implementation is not synchronized.</b>
  * If multiple threads access an indexed container concurrently, and at least one of the threads
  * modifies the container structurally, it must be synchronized externally.
@@ -49,8 +53,32 @@ import java.util.function.BiConsumer;
  *
  */
 public class FastComponentContainer<C extends Component> extends AbstractComponentContainer<C> {
-    private final BitSet containedTypes;
-    private final Int2ObjectOpenHashMap<C> vals;
+    /**
+     * The largest range of raw ids that an indexed dynamic storage is allowed to cover
+     */
+    private static final int MAX_INDEXED_SPAN = 32;
+
+    private static final BitSet NO_STATIC_TYPES = new BitSet(0);
+    private static final ComponentType<?>[] NO_STATIC_TYPE_ARRAY = new ComponentType<?>[0];
+
+    /**
+     * Raw ids of the components held directly by a subclass, shared between all instances of that subclass
+     * unless {@link #addContainedType(ComponentType)} is called
+     */
+    private BitSet staticTypes;
+    /**
+     * The types of the components held directly by a subclass, in raw id order
+     */
+    private ComponentType<?>[] staticTypeArray;
+    private int staticSize;
+    private boolean ownsStaticTypes;
+    private final int expectedDynamicSize;
+    private final boolean indexed;
+    /**
+     * Storage for dynamically added components, only allocated when the first of those is added
+     */
+    @Nullable
+    private DynamicStorage<C> vals;
 
     public FastComponentContainer() {
         this(Hash.DEFAULT_INITIAL_SIZE);
@@ -60,13 +88,54 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
      * @param expected the expected number of <em>dynamically added</em> elements in the container
      */
     public FastComponentContainer(int expected) {
-        this.containedTypes = new BitSet(((ComponentRegistryImpl) ComponentRegistry.INSTANCE).size());
-        this.vals = new Int2ObjectOpenHashMap<>(expected, Hash.VERY_FAST_LOAD_FACTOR);
+        this(expected, false);
     }
 
-    @SuppressWarnings("unused") // called by generated subclasses
+    /**
+     * @param expected the expected number of <em>dynamically added</em> elements in the container
+     * @param indexed  if {@code true}, dynamically added elements will be stored in an array indexed by raw id
+     */
+    public FastComponentContainer(int expected, boolean indexed) {
+        this(expected, indexed, NO_STATIC_TYPES, NO_STATIC_TYPE_ARRAY);
+    }
+
+    /**
+     * @param expected        the expected number of <em>dynamically added</em> elements in the container
+     * @param indexed         if {@code true}, dynamically added elements will be stored in an array indexed by raw id
+     * @param staticTypes     the raw ids of the components held directly by the subclass.
+     *                        The set is not copied, and must not be modified afterwards.
+     * @param staticTypeArray the types of the components held directly by the subclass, in raw id order.
+     *                        The array is not copied, and must not be modified afterwards.
+     */
+    protected FastComponentContainer(int expected, boolean indexed, BitSet staticTypes, ComponentType<?>[] staticTypeArray) {
+        Preconditions.checkArgument(staticTypes.cardinality() == staticTypeArray.length, "Mismatched static types");
+        this.staticTypes = staticTypes;
+        this.staticTypeArray = staticTypeArray;
+        this.staticSize = staticTypeArray.length;
+        this.expectedDynamicSize = expected;
+        this.indexed = indexed;
+    }
+
+    /**
+     * Declares that this container holds a component of the given type directly.
+     *
+     * @param type the type of a component held by a subclass
+     * @deprecated static component types should be passed to the constructor, so that they are shared
+     * between every instance of a subclass. This method copies the set of static types the first time it is called.
+     */
+    @Deprecated
     protected void addContainedType(ComponentType<?> type) {
-        this.containedTypes.set(type.getRawId());
+        if (!this.ownsStaticTypes) {
+            this.staticTypes = (BitSet) this.staticTypes.clone();
+            this.ownsStaticTypes = true;
+        }
+        this.staticTypes.set(type.getRawId());
+        this.staticSize = this.staticTypes.cardinality();
+        ComponentType<?>[] staticTypeArray = new ComponentType<?>[this.staticSize];
+        for (int i = 0, rawId = this.staticTypes.nextSetBit(0); rawId >= 0; rawId = this.staticTypes.nextSetBit(rawId + 1)) {
+            staticTypeArray[i++] = ComponentRegistryImpl.byRawId(rawId);
+        }
+        this.staticTypeArray = staticTypeArray;
     }
 
     /**
@@ -76,17 +145,33 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
      */
     @Override
     public int size() {
-        return this.containedTypes.cardinality();
+        return this.staticSize + this.dynamicSize();
     }
 
     @SuppressWarnings("unused") // called by generated factories to adjust the initial size of future containers
     public final int dynamicSize() {
-        return this.vals.size();
+        DynamicStorage<C> vals = this.vals;
+        return vals == null ? 0 : vals.size();
+    }
+
+    /**
+     * Returns {@code true} if the <em>dynamically added</em> elements of this container form
+     * a small and dense set of raw ids, that would be better stored in an indexed array.
+     */
+    @SuppressWarnings("unused") // called by generated factories to select the storage of future containers
+    public final boolean prefersIndexedStorage() {
+        DynamicStorage<C> vals = this.vals;
+        return vals != null && vals.isDense();
     }
 
     @Override
     public boolean containsKey(ComponentType<?> key) {
-        return this.containedTypes.get(key.getRawId());
+        int rawId = key.getRawId();
+        if (this.staticTypes.get(rawId)) {
+            return true;
+        }
+        DynamicStorage<C> vals = this.vals;
+        return vals != null && vals.get(rawId) != null;
     }
 
     /**
@@ -96,7 +181,23 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
     @Override   // overridden by generated subclasses
     @SuppressWarnings("unchecked")
     public <T extends Component> T get(ComponentType<T> key) {
-        return (T) this.vals.get(key.getRawId());
+        DynamicStorage<C> vals = this.vals;
+        return vals == null ? null : (T) vals.get(key.getRawId());
+    }
+
+    /**
+     * Returns the component of the given type if this container already created it.
+     *
+     * <p> Generated containers with lazily initialized components override this method,
+     * so that iterating over them does not create components that were never requested.
+     * A component that was never created is in the state in which its factory would create it.
+     *
+     * @param key the type of the component to look up
+     * @return the component of the given type, or {@code null} if it is absent or has not been created yet
+     */
+    @Nullable
+    public Component getIfCreated(ComponentType<?> key) {   // overridden by generated subclasses
+        return this.get(key);
     }
 
     /**
@@ -109,8 +210,48 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
         Preconditions.checkNotNull(value);
         Preconditions.checkArgument(key.getComponentClass().isInstance(value), value + " is not of type " + key);
         Preconditions.checkState(this.canBeAssigned(key), "Component type " + key + " was already defined with value " + this.get(key) + ", cannot replace with " + value);
-        this.containedTypes.set(key.getRawId());
-        return this.vals.put(key.getRawId(), value);
+        DynamicStorage<C> vals = this.vals;
+        if (vals == null) {
+            vals = this.vals = this.indexed ? new IndexedStorage<>() : new HashedStorage<>(this.expectedDynamicSize);
+        }
+        return vals.put(key.getRawId(), value);
+    }
+
+    /**
+     * Finds the type under which this container holds the given component instance.
+     *
+     * <p> Static components are compared by identity through the table of static types
+     * shared by every instance of a subclass, without creating lazily initialized components.
+     * Dynamically added components are then compared by identity in their storage.
+     *
+     * @param component the component to look up
+     * @return the type of {@code component} in this container, or {@code null} if this container does not hold it
+     * @throws IllegalStateException if this container holds {@code component} under several types
+     */
+    @Nullable
+    public ComponentType<?> findType(Component component) {
+        ComponentType<?> found = null;
+        for (ComponentType<?> type : this.staticTypeArray) {
+            if (this.getIfCreated(type) == component) {
+                found = checkUniqueType(component, found, type);
+            }
+        }
+        DynamicStorage<C> vals = this.vals;
+        if (vals != null) {
+            for (int pos = vals.nextPosition(0); pos >= 0; pos = vals.nextPosition(pos + 1)) {
+                if (vals.valueAt(pos) == component) {
+                    found = checkUniqueType(component, found, ComponentRegistryImpl.byRawId(vals.rawIdAt(pos)));
+                }
+            }
+        }
+        return found;
+    }
+
+    private static ComponentType<?> checkUniqueType(Component component, @Nullable ComponentType<?> found, ComponentType<?> type) {
+        if (found != null) {
+            throw new IllegalStateException("Component " + component + " is attached to the same provider under 2 or more types");
+        }
+        return type;
     }
 
     // overridden by generated subclasses
@@ -120,8 +261,319 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
 
     @Override   // overridden by generated subclasses
     public void forEach(BiConsumer<? super ComponentType<?>, ? super C> action) {
-        this.vals.int2ObjectEntrySet().fastForEach((e) ->
-            action.accept(ComponentRegistryImpl.byRawId(e.getIntKey()), e.getValue()));
+        DynamicStorage<C> vals = this.vals;
+        if (vals != null) {
+            vals.forEachComponent(action);
+        }
+    }
+
+    /**
+     * Copies the state of this container's components into the components of the same types held by {@code target}.
+     *
+     * <p> Every component of this container must be a {@link CopyableComponent}.
+     * Components that {@code target} lacks are skipped, as are components this container never created.
+     *
+     * @param target the container receiving the copied state
+     */
+    public void copyInto(FastComponentContainer<?> target) {  // overridden by generated subclasses
+        Cursor<C> cursor = this.cursor();
+        while (cursor.advance()) {
+            copyComponent(cursor.getComponent(), target.get(cursor.getType()));
+        }
+    }
+
+    /**
+     * Copies the state of this container's <em>dynamically added</em> components into {@code target}.
+     *
+     * @see #copyInto(FastComponentContainer)
+     */
+    @SuppressWarnings("unused") // called by generated subclasses
+    protected final void copyDynamicComponentsInto(FastComponentContainer<?> target) {
+        DynamicStorage<C> vals = this.vals;
+        if (vals != null) {
+            for (int pos = vals.nextPosition(0); pos >= 0; pos = vals.nextPosition(pos + 1)) {
+                copyComponent(vals.valueAt(pos), target.get(ComponentRegistryImpl.byRawId(vals.rawIdAt(pos))));
+            }
+        }
+    }
+
+    private static <T extends Component> void copyComponent(Component from, @Nullable Component to) {
+        if (to != null) {
+            @SuppressWarnings("unchecked") CopyableComponent<T> copyable = (CopyableComponent<T>) to;
+            @SuppressWarnings("unchecked") T fromComponent = (T) from;
+            copyable.copyFrom(fromComponent);
+        }
+    }
+
+    private static boolean isDense(int size, int span) {
+        return size > 0 && span <= MAX_INDEXED_SPAN && size * 2 >= span;
+    }
+
+    // Dynamic storage
+
+    /**
+     * Storage for dynamically added components.
+     *
+     * <p>Stored components can be iterated through their <em>positions</em>, which are
+     * implementation-specific indices that stay valid as long as the storage is not modified.
+     */
+    private interface DynamicStorage<C extends Component> {
+        @Nullable
+        C get(int rawId);
+
+        @Nullable
+        C put(int rawId, C value);
+
+        int size();
+
+        boolean isDense();
+
+        /**
+         * @return the first occupied position greater than or equal to {@code position}, or {@code -1} if there is none
+         */
+        int nextPosition(int position);
+
+        int rawIdAt(int position);
+
+        C valueAt(int position);
+
+        default void forEachComponent(BiConsumer<? super ComponentType<?>, ? super C> action) {
+            for (int pos = this.nextPosition(0); pos >= 0; pos = this.nextPosition(pos + 1)) {
+                action.accept(ComponentRegistryImpl.byRawId(this.rawIdAt(pos)), this.valueAt(pos));
+            }
+        }
+    }
+
+    private static final class HashedStorage<C extends Component> extends Int2ObjectOpenHashMap<C> implements DynamicStorage<C> {
+        HashedStorage(int expected) {
+            super(expected, Hash.VERY_FAST_LOAD_FACTOR);
+        }
+
+        @Override
+        public boolean isDense() {
+            int size = this.size();
+            if (size == 0 || size > MAX_INDEXED_SPAN) {
+                return false;
+            }
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int pos = this.nextPosition(0); pos >= 0; pos = this.nextPosition(pos + 1)) {
+                int rawId = this.rawIdAt(pos);
+                min = Math.min(min, rawId);
+                max = Math.max(max, rawId);
+            }
+            return FastComponentContainer.isDense(size, max - min + 1);
+        }
+
+        @Override
+        public int nextPosition(int position) {
+            // regular keys are stored in [0, n), the null key (raw id 0) is stored at n
+            final int[] key = this.key;
+            final int n = this.n;
+            for (int pos = position; pos < n; pos++) {
+                if (key[pos] != 0) {
+                    return pos;
+                }
+            }
+            return position <= n && this.containsNullKey ? n : -1;
+        }
+
+        @Override
+        public int rawIdAt(int position) {
+            return this.key[position];
+        }
+
+        @Override
+        public C valueAt(int position) {
+            return this.value[position];
+        }
+    }
+
+    /**
+     * Offset-compressed array storage, based on {@code IndexedComponentContainer}
+     */
+    private static final class IndexedStorage<C extends Component> implements DynamicStorage<C> {
+        private static final Component[] EMPTY = new Component[0];
+
+        private Component[] vals = EMPTY;
+        private int minIndex;
+        private int size;
+
+        @Nullable
+        @Override
+        @SuppressWarnings("unchecked")
+        public C get(int rawId) {
+            final int index = rawId - this.minIndex;
+            Component[] vals = this.vals;
+            return index >= 0 && index < vals.length ? (C) vals[index] : null;
+        }
+
+        @Nullable
+        @Override
+        public C put(int rawId, C value) {
+            Component[] vals = this.vals;
+            int index = rawId - this.minIndex;
+            if (index < 0 || index >= vals.length) {
+                // update the underlying component array to accept the new component
+                if (vals.length == 0) this.minIndex = rawId;
+                int newMinIndex = Math.min(this.minIndex, rawId);
+                int newUniverseSize = Math.max(vals.length + this.minIndex, rawId + 1) - newMinIndex;
+                Component[] newVals = new Component[newUniverseSize];
+                System.arraycopy(vals, 0, newVals, this.minIndex - newMinIndex, vals.length);
+                this.vals = vals = newVals;
+                this.minIndex = newMinIndex;
+                index = rawId - newMinIndex; // compute index again since min index changed
+            }
+            @SuppressWarnings("unchecked") C oldValue = (C) vals[index];
+            vals[index] = value;
+            if (oldValue == null) {
+                this.size++;
+            }
+            return oldValue;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public boolean isDense() {
+            return FastComponentContainer.isDense(this.size, this.vals.length);
+        }
+
+        @Override
+        public int nextPosition(int position) {
+            final Component[] vals = this.vals;
+            for (int pos = position; pos < vals.length; pos++) {
+                if (vals[pos] != null) {
+                    return pos;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int rawIdAt(int position) {
+            return position + this.minIndex;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public C valueAt(int position) {
+            return (C) this.vals[position];
+        }
+    }
+
+    // Cursor
+
+    /**
+     * Returns a new cursor over the components of this container.
+     *
+     * <p>Cursors are small objects that do not allocate while iterating, and every call to this method
+     * returns an independent one, so nested iterations over the same container are supported.
+     * Hot loops can keep a cursor and {@link Cursor#reset() reset} it instead of requesting a new one.
+     * A cursor must not be used after the container has been structurally modified,
+     * nor shared between threads.
+     *
+     * @return a cursor over this container's components, positioned before the first component
+     */
+    public final Cursor<C> cursor() {
+        return new Cursor<>(this);
+    }
+
+    /**
+     * An allocation-free iterator over the components of a {@link FastComponentContainer}.
+     *
+     * <pre>{@code
+     * FastComponentContainer.Cursor<C> cursor = container.cursor();
+     * while (cursor.advance()) {
+     *     doSomething(cursor.getType(), cursor.getComponent());
+     * }
+     * }</pre>
+     *
+     * @see #cursor()
+     */
+    public static final class Cursor<C extends Component> {
+        private final FastComponentContainer<C> container;
+        private final ComponentType<?>[] staticTypes;
+        private int nextStaticIndex;
+        private int nextDynamicPosition;
+        @Nullable
+        private ComponentType<?> type;
+        @Nullable
+        private C component;
+
+        private Cursor(FastComponentContainer<C> container) {
+            this.container = container;
+            this.staticTypes = container.staticTypeArray;
+        }
+
+        /**
+         * Moves this cursor back before the first component of the container, so that it can be reused.
+         *
+         * @return this cursor
+         */
+        public Cursor<C> reset() {
+            this.nextStaticIndex = 0;
+            this.nextDynamicPosition = 0;
+            this.type = null;
+            this.component = null;
+            return this;
+        }
+
+        /**
+         * Moves this cursor to the next component of the container.
+         *
+         * @return {@code true} if the cursor now points to a component, {@code false} if the iteration is over
+         */
+        public boolean advance() {
+            FastComponentContainer<C> container = this.container;
+            ComponentType<?>[] staticTypes = this.staticTypes;
+            while (this.nextStaticIndex < staticTypes.length) {
+                ComponentType<?> type = staticTypes[this.nextStaticIndex++];
+                @SuppressWarnings("unchecked") C component = (C) container.getIfCreated(type);
+                if (component != null) {    // lazily initialized components may not exist yet
+                    this.type = type;
+                    this.component = component;
+                    return true;
+                }
+            }
+            DynamicStorage<C> vals = container.vals;
+            if (vals != null && this.nextDynamicPosition >= 0) {
+                int pos = vals.nextPosition(this.nextDynamicPosition);
+                if (pos >= 0) {
+                    this.nextDynamicPosition = pos + 1;
+                    this.type = ComponentRegistryImpl.byRawId(vals.rawIdAt(pos));
+                    this.component = vals.valueAt(pos);
+                    return true;
+                }
+                this.nextDynamicPosition = -1;
+            }
+            this.type = null;
+            this.component = null;
+            return false;
+        }
+
+        /**
+         * @return the type of the component this cursor points to
+         * @throws IllegalStateException if the cursor does not point to a component
+         */
+        public ComponentType<?> getType() {
+            ComponentType<?> type = this.type;
+            Preconditions.checkState(type != null, "Cursor is not positioned on a component");
+            return type;
+        }
+
+        /**
+         * @return the component this cursor points to
+         * @throws IllegalStateException if the cursor does not point to a component
+         */
+        public C getComponent() {
+            C component = this.component;
+            Preconditions.checkState(component != null, "Cursor is not positioned on a component");
+            return component;
+        }
     }
 
     // Views
@@ -138,8 +590,10 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
     /**
      * Returns a {@link Set} view of the keys contained in this map.
      * The returned set obeys the general contract outlined in
-     * {@link Map#keySet()}.  The set's iterator will return the keys
-     * in their registration order.
+     * {@link Map#keySet()}.  The set's iterator will first return the keys
+     * of the components held directly by a subclass, in raw id order, then
+     * the keys of dynamically added components, in an unspecified order.
+     * Iterating over this view does not allocate beyond the iterator itself.
      *
      * @return a set view of the keys contained in this map
      */
@@ -156,9 +610,7 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
      * Returns a {@link Collection} view of the values contained in this map.
      * The returned collection obeys the general contract outlined in
      * {@link Map#values()}.  The collection's iterator will return the
-     * values in the order their corresponding keys appear in map,
-     * which is their natural order (the order in which the enum constants
-     * are declared).
+     * values in the order their corresponding keys appear in the {@link #keySet() key set}.
      *
      * @return a collection view of the values contained in this map
      */
@@ -175,10 +627,11 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
      * Returns a {@link Set} view of the mappings contained in this map.
      * The returned set obeys the general contract outlined in
      * {@link Map#keySet()}.  The set's iterator will return the
-     * mappings in the order their keys appear in map, which is their
-     * natural order (the order in which the enum constants are declared).
+     * mappings in the order their keys appear in the {@link #keySet() key set}.
+     * Each returned mapping is a new object; {@link #forEach(BiConsumer)} and {@link #cursor()}
+     * should be preferred in performance-sensitive code.
      *
-     * @return a set view of the mappings contained in this enum map
+     * @return a set view of the mappings contained in this map
      */
     @Override
     public Set<Map.Entry<ComponentType<?>, C>> entrySet() {
@@ -255,79 +708,83 @@ public class FastComponentContainer<C extends Component> extends AbstractCompone
         }
     }
 
-    private class ValueIterator implements Iterator<C> {
-        private boolean advance = true;
-        private int curId = -1;
+    /**
+     * Iterates over static components through the shared type array, then over dynamic components by position
+     */
+    private abstract class ContainerIterator<E> implements Iterator<E> {
+        private final ComponentType<?>[] staticTypes = FastComponentContainer.this.staticTypeArray;
+        private int nextStaticIndex;
+        private int nextDynamicPosition = FastComponentContainer.this.vals == null ? -1 : FastComponentContainer.this.vals.nextPosition(0);
+        /**
+         * The type of the current static component, or {@code null} if the current component is dynamic
+         */
+        @Nullable
+        private ComponentType<?> staticType;
+        private int dynamicPosition;
 
         @Override
         public boolean hasNext() {
-            if (this.advance) {
-                this.curId = FastComponentContainer.this.containedTypes.nextSetBit(this.curId + 1);
-                this.advance = false;
-            }
-            return this.curId >= 0;
+            return this.nextStaticIndex < this.staticTypes.length || this.nextDynamicPosition >= 0;
         }
 
-        @Override
-        public C next() {
-            if (!this.hasNext()) {
+        protected final void moveNext() {
+            if (this.nextStaticIndex < this.staticTypes.length) {
+                this.staticType = this.staticTypes[this.nextStaticIndex++];
+                return;
+            }
+            int pos = this.nextDynamicPosition;
+            DynamicStorage<C> vals = FastComponentContainer.this.vals;
+            if (pos < 0 || vals == null) {
                 throw new NoSuchElementException();
             }
-            this.advance = true;
-            ComponentType<?> key = ComponentRegistryImpl.byRawId(this.curId);
-            @SuppressWarnings("unchecked") C value = (C) FastComponentContainer.this.get(key);
-            assert value != null;
-            return value;
+            this.staticType = null;
+            this.dynamicPosition = pos;
+            this.nextDynamicPosition = vals.nextPosition(pos + 1);
         }
 
-    }
-
-    private final class KeyIterator implements Iterator<ComponentType<?>> {
-        private boolean advance = true;
-        private int curId = -1;
-
-        @Override
-        public boolean hasNext() {
-            if (this.advance) {
-                this.curId = FastComponentContainer.this.containedTypes.nextSetBit(this.curId + 1);
-                this.advance = false;
+        protected final ComponentType<?> currentType() {
+            ComponentType<?> staticType = this.staticType;
+            if (staticType != null) {
+                return staticType;
             }
-            return this.curId >= 0;
+            assert FastComponentContainer.this.vals != null;
+            return ComponentRegistryImpl.byRawId(FastComponentContainer.this.vals.rawIdAt(this.dynamicPosition));
         }
 
-        @Override
-        public ComponentType<?> next() {
-            if (!this.hasNext()) {
-                throw new NoSuchElementException();
+        @SuppressWarnings("unchecked")
+        protected final C currentComponent() {
+            ComponentType<?> staticType = this.staticType;
+            if (staticType != null) {
+                C value = (C) FastComponentContainer.this.get(staticType);
+                assert value != null;
+                return value;
             }
-            this.advance = true;
-            return ComponentRegistryImpl.byRawId(this.curId);
+            assert FastComponentContainer.this.vals != null;
+            return FastComponentContainer.this.vals.valueAt(this.dynamicPosition);
         }
     }
 
-    private final class EntryIterator implements Iterator<Entry<ComponentType<?>, C>> {
-        private boolean advance = true;
-        private int curId = -1;
+    private final class ValueIterator extends ContainerIterator<C> {
+        @Override
+        public C next() {
+            this.moveNext();
+            return this.currentComponent();
+        }
+    }
 
+    private final class KeyIterator extends ContainerIterator<ComponentType<?>> {
         @Override
-        public boolean hasNext() {
-            if (this.advance) {
-                this.curId = FastComponentContainer.this.containedTypes.nextSetBit(this.curId + 1);
-                this.advance = false;
-            }
-            return this.curId >= 0;
+        public ComponentType<?> next() {
+            this.moveNext();
+            return this.currentType();
         }
+    }
 
+    private final class EntryIterator extends ContainerIterator<Entry<ComponentType<?>, C>> {
         @Override
         public Entry next() {
-            if (!this.hasNext()) {
-                throw new NoSuchElementException();
-            }
-            this.advance = true;
-            ComponentType<?> key = ComponentRegistryImpl.byRawId(this.curId);
-            @SuppressWarnings("unchecked") C value = (C) FastComponentContainer.this.get(key);
-            assert value != null;
-            return new Entry(key, value);
+            this.moveNext();
+            return new Entry(this.currentType(), this.currentComponent());
         }
 
         private final class Entry implements Map.Entry<ComponentType<?>, C> {
@@ -36,6 +36,22 @@ import net.minecraft.server.network.ServerPlayerEntity;
  */
 public interface BaseSyncedComponent extends SyncedComponent, TypeAwareComponent {
 
+    /**
+     * Returns whether {@link #sync()} may defer this component's synchronization to the end of the current server tick.
+     *
+     * <p> Deferred synchronizations are bundled with the other components of the same provider synchronized
+     * during the tick, and a component synchronized several times during a tick is only sent once.
+     * However, every packet sent by the game in the meantime reaches clients first, including entity removal,
+     * respawn and dimension change packets. Components that must be synchronized before such packets
+     * should not defer their synchronization.
+     *
+     * @implSpec The default implementation returns {@code false}, synchronizing the component immediately.
+     * @since 2.5.0
+     */
+    default boolean shouldDeferSync() {
+        return false;
+    }
+
     /**
      * Write this component's data to {@code buf}.
      *
@@ -0,0 +1,101 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.util.sync;
+
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A {@code BaseSyncedComponent} that can send incremental updates to watching clients.
+ *
+ * <p> When synchronized through {@link #sync()}, a component implementing this interface only sends
+ * the changes recorded since its previous synchronization, written by {@link #writeDeltaToPacket(PacketByteBuf)}.
+ * Clients that start watching the component's provider, as well as clients unable to receive incremental
+ * updates, are sent the full state written by {@link #writeToPacket(PacketByteBuf)} instead.
+ * Incremental updates are then applied on top of that state, in the order they were sent.
+ *
+ * <p> Because a client may receive both a full update and an incremental update describing the same change,
+ * deltas must carry the new value of each changed property rather than a difference.
+ * Example: <pre>{@code
+ *      private int mana;
+ *      private int cooldown;
+ *      private boolean manaChanged;
+ *      private boolean cooldownChanged;
+ *
+ *      public void writeDeltaToPacket(PacketByteBuf buf) {
+ *          buf.writeBoolean(this.manaChanged);
+ *          if (this.manaChanged) buf.writeVarInt(this.mana);
+ *          buf.writeBoolean(this.cooldownChanged);
+ *          if (this.cooldownChanged) buf.writeVarInt(this.cooldown);
+ *      }
+ *
+ *      public void readDeltaFromPacket(PacketByteBuf buf) {
+ *          if (buf.readBoolean()) this.mana = buf.readVarInt();
+ *          if (buf.readBoolean()) this.cooldown = buf.readVarInt();
+ *      }
+ *
+ *      public void clearDelta() {
+ *          this.manaChanged = this.cooldownChanged = false;
+ *      }
+ * }</pre>
+ *
+ * <p> Incremental updates are only used by component providers that bundle their synchronization packets,
+ * and only for components that do not override the provider's default {@link #syncWith(ServerPlayerEntity)}
+ * implementation. In every other case, the full state is sent.
+ *
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public interface DeltaSyncedComponent extends BaseSyncedComponent {
+    /**
+     * Writes the changes made to this component since the last call to {@link #clearDelta()}.
+     *
+     * <p> The written data is shared by every player receiving the update.
+     *
+     * @see #readDeltaFromPacket(PacketByteBuf)
+     */
+    void writeDeltaToPacket(PacketByteBuf buf);
+
+    /**
+     * Applies changes written by {@link #writeDeltaToPacket(PacketByteBuf)} to this component.
+     *
+     * <p> This method is called on the game thread.
+     */
+    void readDeltaFromPacket(PacketByteBuf buf);
+
+    /**
+     * Forgets the changes recorded so far, after they have been sent to every watcher.
+     */
+    void clearDelta();
+
+    /**
+     * Returns whether this component's pending changes should be sent as a delta.
+     *
+     * @implSpec The default implementation returns {@code true}. Implementations may return {@code false}
+     * when a delta would not be smaller than the full state, in which case the full state is sent instead.
+     */
+    default boolean canSendDelta() {
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.util.sync;
+
+import nerdhub.cardinal.components.api.component.Component;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.minecraft.network.PacketByteBuf;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Decodes the synchronization data of a component off the game thread.
+ *
+ * <p> By default, synchronization packets are kept in memory until the game thread processes them
+ * through {@link nerdhub.cardinal.components.api.component.extension.SyncedComponent#processPacket(PacketContext, PacketByteBuf)}.
+ * When a decoder is {@linkplain SyncPacketDecoders#register registered} for a component type, the data is instead
+ * decoded on the network thread as soon as it is received, and the game thread merely applies the resulting {@link Update}.
+ * Example: <pre>{@code
+ *      SyncPacketDecoders.register(MANA, buf -> {
+ *          int mana = buf.readVarInt();
+ *          int cooldown = buf.readVarInt();
+ *          return component -> component.setState(mana, cooldown);
+ *      });
+ * }</pre>
+ *
+ * <p> Decoders only process full updates, written by {@link BaseSyncedComponent#writeToPacket(PacketByteBuf)}.
+ * Incremental updates of {@link DeltaSyncedComponent}s are always read on the game thread.
+ *
+ * @param <C> the type of components updated by the decoded data
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+@FunctionalInterface
+public interface SyncPacketDecoder<C extends Component> {
+    /**
+     * Decodes a component's synchronization data.
+     *
+     * <p> This method is called on the network thread. It must neither access game state nor keep
+     * a reference to {@code buf}, and should return an object that does not change after being created.
+     *
+     * @param buf a buffer containing the data written by the component on the server
+     * @return an update to apply to the component on the game thread
+     */
+    Update<C> decode(PacketByteBuf buf);
+
+    /**
+     * An immutable update, decoded from a synchronization packet.
+     */
+    @FunctionalInterface
+    interface Update<C extends Component> {
+        /**
+         * Applies this update to a component. This method is called on the game thread.
+         */
+        void applyTo(C component);
+    }
+}
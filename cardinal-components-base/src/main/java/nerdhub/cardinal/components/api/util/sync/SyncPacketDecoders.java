@@ -0,0 +1,58 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nerdhub.cardinal.components.api.util.sync;
+
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import org.jetbrains.annotations.ApiStatus;
+
+import javax.annotation.Nullable;
+
+/**
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public final class SyncPacketDecoders {
+
+    /**
+     * Set the decoder used for synchronization packets of components of a given type.
+     *
+     * <p> Registering a decoder moves the decoding of the components' full updates to the network thread.
+     * The components' {@code processPacket} method is not called for those updates anymore.
+     *
+     * @param type    the representation of the registered type
+     * @param decoder a decoder for the data written by the components' {@link BaseSyncedComponent#writeToPacket}
+     * @param <C>     the type of components affected
+     *
+     * @see SyncPacketDecoder
+     */
+    public static <C extends Component> void register(ComponentType<C> type, SyncPacketDecoder<? super C> decoder) {
+        ComponentsBaseNetworking.registerDecoder(type, decoder);
+    }
+
+    @Nullable
+    public static <C extends Component> SyncPacketDecoder<? super C> get(ComponentType<C> type) {
+        return ComponentsBaseNetworking.getDecoder(type);
+    }
+}
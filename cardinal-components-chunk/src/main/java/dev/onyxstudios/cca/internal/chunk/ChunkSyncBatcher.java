@@ -0,0 +1,178 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.chunk;
+
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import dev.onyxstudios.cca.internal.base.ComponentsInternals;
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.BaseSyncedComponent;
+import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gathers the chunks sent to each player during a tick, to synchronize their components
+ * in as few packets as possible once the tick ends.
+ *
+ * <p> Only components that {@linkplain BaseSyncedComponent#shouldDeferSync() defer their synchronization}
+ * are batched, other components are synchronized as soon as their chunk is sent.
+ * A chunk which components do not fit in a single batch packet is synchronized through
+ * {@link ChunkSyncChannel} instead, which splits its components between several bundles.
+ *
+ * <p> Batch packets start with a boolean indicating whether component types use the compact encoding
+ * of {@link ComponentsBaseNetworking}. The rest of the packet is a sequence of chunks, nearest to the player first,
+ * each made of the chunk x position ({@code int}), the chunk z position ({@code int}), the length of the chunk's data
+ * ({@code int}), and the chunk's data itself as a sequence of {@link SyncChannel} bundle entries.
+ */
+public final class ChunkSyncBatcher {
+    public static final Identifier BATCH_PACKET_ID = new Identifier("cardinal-components", "chunk_sync_batch");
+    /**
+     * Size of the data preceding the first chunk in a batch packet
+     */
+    private static final int HEADER_SIZE = 1;
+
+    private static final Map<ServerPlayerEntity, Long2ObjectMap<WorldChunk>> pending = new Reference2ObjectLinkedOpenHashMap<>();
+
+    public static boolean canBatch(ServerPlayerEntity player) {
+        return ServerSidePacketRegistry.INSTANCE.canPlayerReceive(player, BATCH_PACKET_ID);
+    }
+
+    /**
+     * Returns {@code true} if {@code component} opted into having its synchronization deferred,
+     * and can therefore be synchronized in a batch at the end of the tick.
+     */
+    public static boolean canBatch(SyncedComponent component) {
+        return ChunkSyncChannel.INSTANCE.canBundle(component) && ((BaseSyncedComponent) component).shouldDeferSync();
+    }
+
+    /**
+     * Schedules the synchronization of {@code chunk}'s {@linkplain #canBatch(SyncedComponent) batchable} components
+     * with {@code player} at the end of the tick.
+     */
+    public static void enqueue(ServerPlayerEntity player, WorldChunk chunk) {
+        synchronized (pending) {
+            pending.computeIfAbsent(player, p -> new Long2ObjectLinkedOpenHashMap<>()).put(chunk.getPos().toLong(), chunk);
+        }
+    }
+
+    /**
+     * Sends the components of every pending chunk. Called on the server thread at the end of each tick.
+     */
+    public static void flush() {
+        List<Map.Entry<ServerPlayerEntity, Long2ObjectMap<WorldChunk>>> batches;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batches = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+        for (Map.Entry<ServerPlayerEntity, Long2ObjectMap<WorldChunk>> batch : batches) {
+            try {
+                send(batch.getKey(), batch.getValue().values());
+            } catch (Exception e) {
+                ComponentsInternals.LOGGER.error("Error while synchronizing chunk components", e);
+            }
+        }
+    }
+
+    /**
+     * Discards every pending chunk without sending it. Called when the server shuts down.
+     */
+    public static void clear() {
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    private static void send(ServerPlayerEntity player, Iterable<WorldChunk> chunks) {
+        if (player.networkHandler == null) {
+            return;
+        }
+        int playerX = MathHelper.floor(player.getX()) >> 4;
+        int playerZ = MathHelper.floor(player.getZ()) >> 4;
+        List<WorldChunk> sorted = new ArrayList<>();
+        chunks.forEach(sorted::add);
+        sorted.sort(Comparator.comparingInt(chunk -> {
+            ChunkPos pos = chunk.getPos();
+            return Math.max(Math.abs(pos.x - playerX), Math.abs(pos.z - playerZ));
+        }));
+
+        int mapped = ComponentsBaseNetworking.getMappedRawIds(player);
+        PacketByteBuf buf = createBatch(mapped);
+        List<SyncedComponent> synced = new ArrayList<>();
+        for (WorldChunk chunk : sorted) {
+            synced.clear();
+            ComponentsChunkNetworking.collectSyncedComponents(chunk, synced);
+            synced.removeIf(component -> !canBatch(component));
+            if (synced.isEmpty()) {
+                continue;
+            }
+            int chunkStart = buf.writerIndex();
+            ChunkPos pos = chunk.getPos();
+            buf.writeInt(pos.x);
+            buf.writeInt(pos.z);
+            int lengthIndex = buf.writerIndex();
+            buf.writeInt(0);
+            ChunkSyncChannel.INSTANCE.writeEntries(buf, synced, mapped);
+            int length = buf.writerIndex() - lengthIndex - Integer.BYTES;
+            buf.setInt(lengthIndex, length);
+            int chunkSize = buf.writerIndex() - chunkStart;
+            if (HEADER_SIZE + chunkSize > SyncChannel.MAX_BUNDLE_SIZE) {
+                // the chunk does not fit in any batch, let the channel split it between several bundles
+                buf.writerIndex(chunkStart);
+                ChunkSyncChannel.INSTANCE.syncWith(chunk, player, synced);
+            } else if (buf.writerIndex() > SyncChannel.MAX_BUNDLE_SIZE) {
+                // the last chunk does not fit, move it to the next batch
+                PacketByteBuf next = createBatch(mapped);
+                next.writeBytes(buf, chunkStart, chunkSize);
+                buf.writerIndex(chunkStart);
+                ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, BATCH_PACKET_ID, buf);
+                buf = next;
+            }
+        }
+        if (buf.writerIndex() > HEADER_SIZE) {
+            ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, BATCH_PACKET_ID, buf);
+        }
+    }
+
+    private static PacketByteBuf createBatch(int mapped) {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeBoolean(mapped >= 0);
+        return buf;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.chunk;
+
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import nerdhub.cardinal.components.api.util.sync.ChunkSyncedComponent;
+import net.fabricmc.fabric.api.server.PlayerStream;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Consumer;
+
+/**
+ * Bundles chunk component updates. The header of each bundle is the chunk x position ({@code int}),
+ * followed by the chunk z position ({@code int}).
+ */
+public final class ChunkSyncChannel extends SyncChannel<WorldChunk> {
+    public static final Identifier BUNDLE_PACKET_ID = new Identifier("cardinal-components", "chunk_sync_bundle");
+    public static final ChunkSyncChannel INSTANCE = new ChunkSyncChannel();
+
+    private ChunkSyncChannel() {
+        super(BUNDLE_PACKET_ID, ChunkSyncedComponent.class);
+    }
+
+    @Override
+    protected void writeHeader(WorldChunk provider, PacketByteBuf buf) {
+        ChunkPos pos = provider.getPos();
+        buf.writeInt(pos.x);
+        buf.writeInt(pos.z);
+    }
+
+    @Override
+    protected void forEachWatcher(WorldChunk provider, Consumer<ServerPlayerEntity> action) {
+        PlayerStream.watching(provider.getWorld(), provider.getPos()).map(ServerPlayerEntity.class::cast).forEach(action);
+    }
+}
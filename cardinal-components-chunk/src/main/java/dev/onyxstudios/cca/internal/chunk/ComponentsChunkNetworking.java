@@ -22,58 +22,156 @@
  */
 package dev.onyxstudios.cca.internal.chunk;
 
+import dev.onyxstudios.cca.internal.base.ComponentSyncScheduler;
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
-import nerdhub.cardinal.components.api.ComponentRegistry;
+import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.base.PendingComponentUpdate;
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
 import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import nerdhub.cardinal.components.api.event.ChunkSyncCallback;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import nerdhub.cardinal.components.api.util.sync.ChunkSyncedComponent;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public final class ComponentsChunkNetworking {
+    /**
+     * Channel used instead of {@link ChunkSyncedComponent#PACKET_ID} for clients that received the raw id map.
+     * Packets have the same layout, except that the component type is written using the
+     * compact encoding of {@link ComponentsBaseNetworking}.
+     */
+    public static final Identifier COMPACT_PACKET_ID = new Identifier("cardinal-components", "chunk_sync_compact");
+
     public static void init() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
-            ChunkSyncCallback.EVENT.register((player, tracked) -> ComponentProvider.fromChunk(tracked)
-                .forEachComponent((componentType, component) -> {
-                    if (component instanceof SyncedComponent) {
-                        ((SyncedComponent) component).syncWith(player);
-                    }
-                }));
+            ChunkSyncCallback.EVENT.register(ComponentsChunkNetworking::syncChunkComponents);
+            ComponentSyncScheduler.addFlushListener(ChunkSyncBatcher::flush);
+            ComponentSyncScheduler.addClearListener(ChunkSyncBatcher::clear);
+        }
+    }
+
+    private static void syncChunkComponents(ServerPlayerEntity player, WorldChunk tracked) {
+        List<SyncedComponent> synced = new ArrayList<>();
+        collectSyncedComponents(tracked, synced);
+        if (ChunkSyncBatcher.canBatch(player) && synced.removeIf(ChunkSyncBatcher::canBatch)) {
+            // chunks are usually sent in bulk, send their deferred components together at the end of the tick
+            ChunkSyncBatcher.enqueue(player, tracked);
+        }
+        if (!synced.isEmpty()) {
+            ChunkSyncChannel.INSTANCE.syncWith(tracked, player, synced);
+        }
+    }
+
+    static void collectSyncedComponents(WorldChunk chunk, List<SyncedComponent> synced) {
+        ComponentProvider provider = ComponentProvider.fromChunk(chunk);
+        ComponentContainer<?> components = provider instanceof InternalComponentProvider ? ((InternalComponentProvider) provider).getComponentContainer() : null;
+        if (components instanceof FastComponentContainer) {
+            FastComponentContainer.Cursor<?> cursor = ((FastComponentContainer<?>) components).cursor();
+            while (cursor.advance()) {
+                if (cursor.getComponent() instanceof SyncedComponent) {
+                    synced.add((SyncedComponent) cursor.getComponent());
+                }
+            }
+        } else {
+            provider.forEachComponent((componentType, component) -> {
+                if (component instanceof SyncedComponent) {
+                    synced.add((SyncedComponent) component);
+                }
+            });
         }
     }
 
     // Safe to put in the same class as no client-only class is directly referenced
     public static void initClient() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
-            ClientSidePacketRegistry.INSTANCE.register(ChunkSyncedComponent.PACKET_ID, (context, buffer) -> {
+            ClientSidePacketRegistry.INSTANCE.register(ChunkSyncedComponent.PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, false));
+            ClientSidePacketRegistry.INSTANCE.register(COMPACT_PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, true));
+            ClientSidePacketRegistry.INSTANCE.register(ChunkSyncChannel.BUNDLE_PACKET_ID, ComponentsChunkNetworking::processBundle);
+            ClientSidePacketRegistry.INSTANCE.register(ChunkSyncBatcher.BATCH_PACKET_ID, ComponentsChunkNetworking::processBatch);
+        }
+    }
+
+    private static void processSyncPacket(PacketContext context, PacketByteBuf buffer, boolean compact) {
+        try {
+            int chunkX = buffer.readInt();
+            int chunkZ = buffer.readInt();
+            ComponentType<?> componentType = ComponentsBaseNetworking.readComponentType(buffer, compact);
+            if (componentType == null) {
+                return;
+            }
+            PendingComponentUpdate<?> update = PendingComponentUpdate.read(componentType, new PacketByteBuf(buffer.retainedSlice()), false);
+            context.getTaskQueue().execute(() -> {
                 try {
-                    int chunkX = buffer.readInt();
-                    int chunkZ = buffer.readInt();
-                    Identifier componentTypeId = buffer.readIdentifier();
-                    ComponentType<?> componentType = ComponentRegistry.INSTANCE.get(componentTypeId);
-                    if (componentType == null) {
-                        return;
-                    }
-                    PacketByteBuf copy = new PacketByteBuf(buffer.copy());
-                    context.getTaskQueue().execute(() -> {
-                        try {
-                            // Note: on the client, unloaded chunks return EmptyChunk
-                            componentType.maybeGet(context.getPlayer().world.getChunk(chunkX, chunkZ))
-                                .filter(c -> c instanceof SyncedComponent)
-                                .ifPresent(c -> ((SyncedComponent) c).processPacket(context, copy));
-                        } finally {
-                            copy.release();
-                        }
-                    });
-                } catch (Exception e) {
-                    ComponentsInternals.LOGGER.error("Error while reading chunk components from network", e);
-                    throw e;
+                    // Note: on the client, unloaded chunks return EmptyChunk
+                    update.apply(context, context.getPlayer().world.getChunk(chunkX, chunkZ));
+                } finally {
+                    update.release();
                 }
             });
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading chunk components from network", e);
+            throw e;
+        }
+    }
+
+    private static void processBundle(PacketContext context, PacketByteBuf buffer) {
+        try {
+            int chunkX = buffer.readInt();
+            int chunkZ = buffer.readInt();
+            // Note: on the client, unloaded chunks return EmptyChunk
+            SyncChannel.processBundle(context, buffer, () -> context.getPlayer().world.getChunk(chunkX, chunkZ));
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading chunk components from network", e);
+            throw e;
+        }
+    }
+
+    private static void processBatch(PacketContext context, PacketByteBuf buffer) {
+        IntList chunkXs = new IntArrayList();
+        IntList chunkZs = new IntArrayList();
+        List<List<PendingComponentUpdate<?>>> updates = new ArrayList<>();
+        try {
+            boolean compact = buffer.readBoolean();
+            while (buffer.isReadable()) {
+                chunkXs.add(buffer.readInt());
+                chunkZs.add(buffer.readInt());
+                int length = buffer.readInt();
+                updates.add(SyncChannel.readEntries(new PacketByteBuf(buffer.readSlice(length)), compact));
+            }
+        } catch (Exception e) {
+            updates.forEach(chunkUpdates -> chunkUpdates.forEach(PendingComponentUpdate::release));
+            ComponentsInternals.LOGGER.error("Error while reading chunk components from network", e);
+            throw e;
         }
+        context.getTaskQueue().execute(() -> {
+            try {
+                World world = context.getPlayer().world;
+                for (int i = 0; i < updates.size(); i++) {
+                    // Note: on the client, unloaded chunks return EmptyChunk
+                    Chunk chunk = world.getChunk(chunkXs.getInt(i), chunkZs.getInt(i));
+                    for (PendingComponentUpdate<?> update : updates.get(i)) {
+                        update.apply(context, chunk);
+                    }
+                }
+            } finally {
+                updates.forEach(chunkUpdates -> chunkUpdates.forEach(PendingComponentUpdate::release));
+            }
+        });
     }
 }
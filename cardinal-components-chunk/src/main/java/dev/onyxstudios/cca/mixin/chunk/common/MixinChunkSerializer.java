@@ -23,6 +23,7 @@
 package dev.onyxstudios.cca.mixin.chunk.common;
 
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.chunk.ChangeTrackingChunk;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.structure.StructureManager;
@@ -45,12 +46,14 @@ public abstract class MixinChunkSerializer {
         Chunk chunk = ret instanceof ReadOnlyChunk ? ((ReadOnlyChunk) ret).getWrappedChunk() : ret;
         CompoundTag levelData = tag.getCompound("Level");
         ((InternalComponentProvider)chunk).getComponentContainer().fromTag(levelData);
+        ((ChangeTrackingChunk)chunk).getComponentChangeTracker().markSaved();
     }
 
     @Inject(method = "serialize", at = @At("RETURN"))
     private static void serialize(ServerWorld world, Chunk chunk, CallbackInfoReturnable<CompoundTag> cir) {
         CompoundTag ret = cir.getReturnValue();
         CompoundTag levelData = ret.getCompound("Level");
-        ((InternalComponentProvider)chunk).getComponentContainer().toTag(levelData);
+        // unchanged components reuse the data they wrote during the previous save
+        ((ChangeTrackingChunk)chunk).getComponentChangeTracker().toTag(levelData);
     }
 }
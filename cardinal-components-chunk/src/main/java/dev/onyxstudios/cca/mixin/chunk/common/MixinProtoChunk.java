@@ -22,9 +22,11 @@
  */
 package dev.onyxstudios.cca.mixin.chunk.common;
 
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.chunk.ChangeTrackingChunk;
 import dev.onyxstudios.cca.internal.chunk.StaticChunkComponentPlugin;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
@@ -37,20 +39,31 @@ import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import javax.annotation.Nonnull;
 
 @Mixin(ProtoChunk.class)
-public abstract class MixinProtoChunk implements Chunk, InternalComponentProvider {
+public abstract class MixinProtoChunk implements Chunk, InternalComponentProvider, ChangeTrackingChunk {
     @Unique
     private static final Lazy<DynamicContainerFactory<Chunk, CopyableComponent<?>>> componentsContainerFactory
         = new Lazy<>(() -> ComponentsInternals.createFactory(StaticChunkComponentPlugin.INSTANCE.getContainerFactoryClass(), ChunkComponentCallback.EVENT));
     @Unique
     private ComponentContainer<CopyableComponent<?>> components;
+    @Unique
+    private ComponentChangeTracker changeTracker;
 
     @Inject(method = "<init>(Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/world/chunk/UpgradeData;[Lnet/minecraft/world/chunk/ChunkSection;Lnet/minecraft/world/ChunkTickScheduler;Lnet/minecraft/world/ChunkTickScheduler;)V", at = @At("RETURN"))
     private void initComponents(CallbackInfo ci) {
         this.components = componentsContainerFactory.get().create(this);
+        this.changeTracker = new ComponentChangeTracker(this.components);
+    }
+
+    @Inject(method = "needsSaving", at = @At("RETURN"), cancellable = true)
+    private void checkComponentChanges(CallbackInfoReturnable<Boolean> cir) {
+        if (!cir.getReturnValueZ() && this.getComponentChangeTracker().hasTrackedChanges()) {
+            cir.setReturnValue(true);
+        }
     }
 
     @Nonnull
@@ -58,4 +71,9 @@ public abstract class MixinProtoChunk implements Chunk, InternalComponentProvide
     public Object getStaticComponentContainer() {
         return this.components;
     }
+
+    @Override
+    public ComponentChangeTracker getComponentChangeTracker() {
+        return this.changeTracker;
+    }
 }
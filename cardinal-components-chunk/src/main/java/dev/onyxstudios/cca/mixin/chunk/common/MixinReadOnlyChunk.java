@@ -22,7 +22,9 @@
  */
 package dev.onyxstudios.cca.mixin.chunk.common;
 
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.chunk.ChangeTrackingChunk;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.ProtoChunk;
 import net.minecraft.world.chunk.ReadOnlyChunk;
@@ -48,4 +50,9 @@ public abstract class MixinReadOnlyChunk extends ProtoChunk implements InternalC
         return ((InternalComponentProvider)this.wrapped).getStaticComponentContainer();
     }
 
+    @Override
+    public ComponentChangeTracker getComponentChangeTracker() {
+        return ((ChangeTrackingChunk)this.wrapped).getComponentChangeTracker();
+    }
+
 }
@@ -22,9 +22,11 @@
  */
 package dev.onyxstudios.cca.mixin.chunk.common;
 
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.chunk.ChangeTrackingChunk;
 import dev.onyxstudios.cca.internal.chunk.StaticChunkComponentPlugin;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
@@ -40,20 +42,31 @@ import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import javax.annotation.Nonnull;
 
 @Mixin(WorldChunk.class)
-public abstract class MixinWorldChunk implements Chunk, InternalComponentProvider {
+public abstract class MixinWorldChunk implements Chunk, InternalComponentProvider, ChangeTrackingChunk {
     @Unique
     private static final Lazy<DynamicContainerFactory<Chunk, CopyableComponent<?>>> componentsContainerFactory
         = new Lazy<>(() -> ComponentsInternals.createFactory(StaticChunkComponentPlugin.INSTANCE.getContainerFactoryClass(), ChunkComponentCallback.EVENT));
     @Unique
     private ComponentContainer<CopyableComponent<?>> components;
+    @Unique
+    private ComponentChangeTracker changeTracker;
 
     @Inject(method = "<init>(Lnet/minecraft/world/World;Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/world/biome/source/BiomeArray;Lnet/minecraft/world/chunk/UpgradeData;Lnet/minecraft/world/TickScheduler;Lnet/minecraft/world/TickScheduler;J[Lnet/minecraft/world/chunk/ChunkSection;Ljava/util/function/Consumer;)V", at = @At("RETURN"))
     private void initComponents(CallbackInfo ci) {
         this.components = componentsContainerFactory.get().create(this);
+        this.changeTracker = new ComponentChangeTracker(this.components);
+    }
+
+    @Inject(method = "needsSaving", at = @At("RETURN"), cancellable = true)
+    private void checkComponentChanges(CallbackInfoReturnable<Boolean> cir) {
+        if (!cir.getReturnValueZ() && this.getComponentChangeTracker().hasTrackedChanges()) {
+            cir.setReturnValue(true);
+        }
     }
 
     @Nonnull
@@ -62,6 +75,11 @@ public abstract class MixinWorldChunk implements Chunk, InternalComponentProvide
         return this.components;
     }
 
+    @Override
+    public ComponentChangeTracker getComponentChangeTracker() {
+        return this.changeTracker;
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     @Inject(method = "<init>(Lnet/minecraft/world/World;Lnet/minecraft/world/chunk/ProtoChunk;)V", at = @At("RETURN"))
     private void copyFromProto(World world, ProtoChunk proto, CallbackInfo ci) {
@@ -22,6 +22,10 @@
  */
 package nerdhub.cardinal.components.api.util.sync;
 
+import dev.onyxstudios.cca.internal.base.ComponentSyncScheduler;
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import dev.onyxstudios.cca.internal.chunk.ChunkSyncChannel;
+import dev.onyxstudios.cca.internal.chunk.ComponentsChunkNetworking;
 import io.netty.buffer.Unpooled;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
@@ -31,7 +35,6 @@ import nerdhub.cardinal.components.api.component.extension.TypeAwareComponent;
 import nerdhub.cardinal.components.api.util.ChunkComponent;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
-import net.fabricmc.fabric.api.server.PlayerStream;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -40,6 +43,8 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.WorldChunk;
 
+import java.util.Collections;
+
 /**
  * Default implementations of {@link SyncedComponent} methods, specialized for chunk components
  */
@@ -59,22 +64,31 @@ public interface ChunkSyncedComponent<C extends Component> extends ChunkComponen
 
     /**
      * {@inheritDoc}
-     * @implNote The default implementation should generally be overridden.
-     * This implementation performs a linear-time lookup on the provider to find the component type
-     * this component is associated with.
-     * Implementing classes can nearly always provide a better implementation.
+     * @implNote This implementation uses {@link TypeAwareComponent#lookupComponentType},
+     * which compares this component by identity with those held by the provider's component container.
      */
     @Override
     default ComponentType<? super C> getComponentType() {
         return TypeAwareComponent.lookupComponentType(ComponentProvider.fromChunk(this.getChunk()), this);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote The default implementation sends this component's data to every player watching the chunk immediately.
+     * If {@link #shouldDeferSync()} returns {@code true}, the data is instead sent at the end of the current
+     * server tick, bundled with the other components of the same chunk synchronized during that tick.
+     */
     @Override
     default void sync() {
         if (this.getChunk() instanceof WorldChunk) {
             WorldChunk chunk = (WorldChunk) this.getChunk();
             if (!chunk.getWorld().isClient) {
-                PlayerStream.watching(chunk.getWorld(), chunk.getPos()).map(ServerPlayerEntity.class::cast).forEach(this::syncWith);
+                if (this.shouldDeferSync()) {
+                    ComponentSyncScheduler.schedule(ChunkSyncChannel.INSTANCE, chunk, this);
+                } else {
+                    ChunkSyncChannel.INSTANCE.sync(chunk, Collections.singleton(this));
+                }
             }
         }
     }
@@ -85,9 +99,9 @@ public interface ChunkSyncedComponent<C extends Component> extends ChunkComponen
         ChunkPos pos = this.getChunk().getPos();
         buf.writeInt(pos.x);
         buf.writeInt(pos.z);
-        buf.writeIdentifier(this.getComponentType().getId());
+        boolean compact = ComponentsBaseNetworking.writeComponentType(player, buf, this.getComponentType());
         this.writeToPacket(buf);
-        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, PACKET_ID, buf);
+        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, compact ? ComponentsChunkNetworking.COMPACT_PACKET_ID : PACKET_ID, buf);
     }
 
     /**
@@ -0,0 +1,53 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.api.v3.util;
+
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
+import nerdhub.cardinal.components.api.event.PlayerCopyCallback;
+import nerdhub.cardinal.components.api.util.RespawnCopyStrategy;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A component that can take ownership of another component's data when a player respawns.
+ *
+ * <p> The {@link RespawnCopyStrategy#TRANSFER} respawn copy strategy calls {@link #transferFrom(Component)}
+ * instead of copying data through {@link CopyableComponent#copyFrom(Component) copyFrom} or NBT serialization.
+ * Since the original player is discarded after respawning, its components do not need to keep their data.
+ * Other builtin strategies keep copying data.
+ *
+ * @param <C> the type of component this component can take data from
+ */
+@ApiStatus.Experimental
+public interface TransferableComponent<C extends Component> extends Component {
+    /**
+     * Takes ownership of the data held by a component that is about to be discarded.
+     *
+     * <p> Unlike a copy, this method may reuse mutable objects held by {@code original}, leaving it
+     * in an unspecified state. {@link PlayerCopyCallback} listeners that run after the transfer
+     * must not rely on the original component's data.
+     *
+     * @param original the component to take data from
+     */
+    void transferFrom(C original);
+}
@@ -25,28 +25,63 @@ package dev.onyxstudios.cca.internal.entity;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import dev.onyxstudios.cca.api.v3.util.PlayerComponent;
+import dev.onyxstudios.cca.api.v3.util.TransferableComponent;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
+import dev.onyxstudios.cca.internal.base.SnapshotTag;
+import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
+import nerdhub.cardinal.components.api.component.extension.SnapshottableComponent;
 import nerdhub.cardinal.components.api.event.EntityComponentCallback;
 import nerdhub.cardinal.components.api.util.RespawnCopyStrategy;
 import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.entity.Entity;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.Identifier;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class CardinalEntityInternals {
 
     private CardinalEntityInternals() { throw new AssertionError(); }
 
-    private static final Map<Class<? extends Entity>, Event<?>> ENTITY_EVENTS = Collections.synchronizedMap(new HashMap<>());
-    private static final Map<Class<? extends Entity>, DynamicContainerFactory<Entity, Component>> entityContainerFactories = new HashMap<>();
+    private static final ClassValue<Event<?>> ENTITY_EVENTS = new ClassValue<Event<?>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Event<?> computeValue(Class<?> type) {
+            // concurrent computations for the same class all end up returning the same event
+            return EventFactory.createArrayBacked(EntityComponentCallback.class, callbacks -> (EntityComponentCallback<Entity>) (entity, components) -> {
+                for (EntityComponentCallback<Entity> callback : callbacks) {
+                    callback.initComponents(entity, components);
+                }
+            });
+        }
+    };
+    /**
+     * Container factories for each entity class, created without locking.
+     * If several threads create the first entity of a class at the same time, only one of their factories is kept.
+     */
+    private static final ClassValue<DynamicContainerFactory<Entity, Component>> entityContainerFactories = new ClassValue<DynamicContainerFactory<Entity, Component>>() {
+        @Override
+        protected DynamicContainerFactory<Entity, Component> computeValue(Class<?> type) {
+            return createContainerFactory(type.asSubclass(Entity.class));
+        }
+    };
     private static final Map<ComponentType<?>, RespawnCopyStrategy<?>> RESPAWN_COPY_STRATEGIES = new HashMap<>();
-    private static final Object factoryMutex = new Object();
+    /**
+     * Set while entities are saved as part of a chunk, in which case their data goes straight to the disk writer
+     */
+    private static final ThreadLocal<Boolean> SAVING_TO_CHUNK = ThreadLocal.withInitial(() -> false);
+    /**
+     * Respawn copiers for each component container class, invalidated whenever a copy strategy is registered
+     */
+    private static final Map<Class<?>, RespawnCopier> RESPAWN_COPIERS = new ConcurrentHashMap<>();
 
     @SuppressWarnings("unchecked")
     public static <T extends Entity> Event<EntityComponentCallback<T>> event(Class<T> clazz) {
@@ -56,51 +91,69 @@ public final class CardinalEntityInternals {
         // You who sees this code, turn back before it is too late. For no one must witness the horror sealed within.
         // DO NOT REMOVE THIS CAST (https://gist.github.com/Pyrofab/10892e2256ed181855b0809670cfdbbb)
         //noinspection RedundantCast
-        return (Event<EntityComponentCallback<T>>) ENTITY_EVENTS.computeIfAbsent(clazz, c ->
-                EventFactory.createArrayBacked(EntityComponentCallback.class, callbacks -> (EntityComponentCallback<Entity>) (entity, components) -> {
-                    for (EntityComponentCallback<Entity> callback : callbacks) {
-                        callback.initComponents(entity, components);
-                    }
-                })
-        );
+        return (Event<EntityComponentCallback<T>>) ENTITY_EVENTS.get(clazz);
     }
 
     /**
-     * Gets a container factory for an entity class, or creates one if none exists.
+     * Gets a container factory for an entity class, or creates one if none exists, and uses it
+     * to create the given entity's components.
      * The container factory will populate the container by invoking events for that class
      * and every superclass, in order from least specific (Entity) to most specific ({@code clazz}).
      */
-    @SuppressWarnings("unchecked")
     public static ComponentContainer<?> createEntityComponentContainer(Entity entity) {
-        Class<? extends Entity> entityClass = entity.getClass();
-        DynamicContainerFactory<Entity, Component> existing = entityContainerFactories.get(entityClass);
-        if (existing != null) {
-            return existing.create(entity);
+        return entityContainerFactories.get(entity.getClass()).create(entity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DynamicContainerFactory<Entity, Component> createContainerFactory(Class<? extends Entity> entityClass) {
+        List<Event<?>> events = new ArrayList<>();
+        Class<? extends Entity> c = entityClass;
+        Class<? extends Entity> parentWithStaticComponents = null;
+
+        while (Entity.class.isAssignableFrom(c)) {
+            events.add(EntityComponentCallback.event(c));
+            if (parentWithStaticComponents == null && StaticEntityComponentPlugin.INSTANCE.requiresStaticFactory(c)) {   // try to find a specialized ASM factory
+                parentWithStaticComponents = c;
+            }
+            c = (Class<? extends Entity>) c.getSuperclass();
         }
-        synchronized (factoryMutex) {
-            // computeIfAbsent and not put, because the factory may have been generated while waiting
-            return entityContainerFactories.computeIfAbsent(entityClass, cl -> {
-                List<Event<?>> events = new ArrayList<>();
-                Class<? extends Entity> c = cl;
-                Class<? extends Entity> parentWithStaticComponents = null;
-
-                while (Entity.class.isAssignableFrom(c)) {
-                    events.add(EntityComponentCallback.event(c));
-                    if (parentWithStaticComponents == null && StaticEntityComponentPlugin.INSTANCE.requiresStaticFactory(c)) {   // try to find a specialized ASM factory
-                        parentWithStaticComponents = c;
-                    }
-                    c = (Class<? extends Entity>) c.getSuperclass();
-                }
-                assert parentWithStaticComponents != null;
-                Class<? extends DynamicContainerFactory<Entity,Component>> factoryClass = (Class<? extends DynamicContainerFactory<Entity, Component>>) StaticEntityComponentPlugin.INSTANCE.spinDedicatedFactory(new StaticEntityComponentPlugin.Key(events.size(), parentWithStaticComponents));
+        assert parentWithStaticComponents != null;
+        Class<? extends DynamicContainerFactory<Entity,Component>> factoryClass = (Class<? extends DynamicContainerFactory<Entity, Component>>) StaticEntityComponentPlugin.INSTANCE.spinDedicatedFactory(new StaticEntityComponentPlugin.Key(events.size(), parentWithStaticComponents));
+
+        return ComponentsInternals.createFactory(factoryClass, Lists.reverse(events).toArray(new Event[0]));
+    }
+
+    /**
+     * Saves an entity as part of a chunk, letting its {@linkplain SnapshottableComponent snapshottable}
+     * components be encoded on the chunk IO thread.
+     */
+    public static boolean saveToChunk(Entity entity, CompoundTag tag) {
+        boolean wasSaving = SAVING_TO_CHUNK.get();
+        SAVING_TO_CHUNK.set(true);
+        try {
+            return entity.saveToTag(tag);
+        } finally {
+            SAVING_TO_CHUNK.set(wasSaving);
+        }
+    }
 
-                return ComponentsInternals.createFactory(factoryClass, Lists.reverse(events).toArray(new Event[0]));
-            }).create(entity);
+    /**
+     * Writes an entity's components to its tag.
+     *
+     * <p> {@link SnapshotTag}s are only used when the entity is being {@linkplain #saveToChunk saved to a chunk},
+     * as the tags returned by {@link Entity#toTag(CompoundTag)} are otherwise freely copied and compared.
+     */
+    public static void writeComponents(ComponentContainer<?> components, CompoundTag tag) {
+        if (SAVING_TO_CHUNK.get()) {
+            SnapshotTag.writeComponents(components, tag);
+        } else {
+            components.toTag(tag);
         }
     }
 
     public static <C extends Component> void registerRespawnCopyStrat(ComponentType<C> type, RespawnCopyStrategy<? super C> strategy) {
         RESPAWN_COPY_STRATEGIES.put(type, strategy);
+        RESPAWN_COPIERS.clear();
     }
 
     @SuppressWarnings("unchecked")
@@ -108,6 +161,37 @@ public final class CardinalEntityInternals {
         return (RespawnCopyStrategy<C>) RESPAWN_COPY_STRATEGIES.getOrDefault(type, CardinalEntityInternals::defaultCopyStrategy);
     }
 
+    private static RespawnCopyStrategy<?> resolveRespawnCopyStrat(Identifier componentId) {
+        ComponentType<?> type = ComponentRegistry.INSTANCE.get(componentId);
+        return type == null ? (RespawnCopyStrategy<Component>) CardinalEntityInternals::defaultCopyStrategy : getRespawnCopyStrat(type);
+    }
+
+    /**
+     * Gets a copier that copies every component in containers of the given class with their respective strategy,
+     * or creates one if none exists.
+     *
+     * @return a respawn copier, or {@code null} if the container class was not generated for an entity class
+     */
+    @Nullable
+    public static RespawnCopier getRespawnCopier(Class<?> containerClass) {
+        RespawnCopier copier = RESPAWN_COPIERS.get(containerClass);
+        if (copier == null) {
+            copier = StaticEntityComponentPlugin.INSTANCE.createRespawnCopier(containerClass, CardinalEntityInternals::resolveRespawnCopyStrat);
+            if (copier != null) {
+                RESPAWN_COPIERS.put(containerClass, copier);
+            }
+        }
+        return copier;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void copyForRespawn(ComponentType<?> type, Component from, ComponentContainer<?> to, boolean lossless, boolean keepInventory) {
+        Component toComponent = to.get(type);
+        if (toComponent != null) {
+            getRespawnCopyStrat((ComponentType) type).copyForRespawn(from, toComponent, lossless, keepInventory);
+        }
+    }
+
     private static void defaultCopyStrategy(Component from, Component to, boolean lossless, boolean keepInventory) {
         if (to instanceof PlayerComponent) {
             playerComponentCopy(from, (PlayerComponent<?>) to, lossless, keepInventory);
@@ -127,4 +211,9 @@ public final class CardinalEntityInternals {
     public static <C extends Component> void copyAsCopyable(Component from, CopyableComponent<C> to) {
         to.copyFrom((C) from);
     }
+
+    @SuppressWarnings("unchecked")
+    public static <C extends Component> void transferAsTransferable(Component from, TransferableComponent<C> to) {
+        to.transferFrom((C) from);
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.entity;
+
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import nerdhub.cardinal.components.api.util.sync.EntitySyncedComponent;
+import net.fabricmc.fabric.api.server.PlayerStream;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.function.Consumer;
+
+/**
+ * Bundles entity component updates. The header of each bundle is the {@link Entity#getEntityId() entity id} (as an int).
+ */
+public final class EntitySyncChannel extends SyncChannel<Entity> {
+    public static final Identifier BUNDLE_PACKET_ID = new Identifier("cardinal-components", "entity_sync_bundle");
+    public static final EntitySyncChannel INSTANCE = new EntitySyncChannel();
+
+    private EntitySyncChannel() {
+        super(BUNDLE_PACKET_ID, EntitySyncedComponent.class);
+    }
+
+    @Override
+    protected void writeHeader(Entity provider, PacketByteBuf buf) {
+        buf.writeInt(provider.getEntityId());
+    }
+
+    @Override
+    protected void forEachWatcher(Entity provider, Consumer<ServerPlayerEntity> action) {
+        if (provider instanceof ServerPlayerEntity && ((ServerPlayerEntity) provider).networkHandler != null) {
+            action.accept((ServerPlayerEntity) provider);
+        }
+        PlayerStream.watching(provider).map(ServerPlayerEntity.class::cast).forEach(action);
+    }
+}
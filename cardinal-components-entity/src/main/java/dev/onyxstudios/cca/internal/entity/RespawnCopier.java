@@ -0,0 +1,64 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.entity;
+
+import nerdhub.cardinal.components.api.util.RespawnCopyStrategy;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
+
+import java.util.BitSet;
+
+/**
+ * Copies the components of a player to its clone when it respawns.
+ *
+ * <p> Implementations are generated for each player component container class by {@link StaticEntityComponentPlugin},
+ * with the {@link RespawnCopyStrategy} of every static component resolved in advance.
+ */
+public abstract class RespawnCopier {
+    /**
+     * Raw ids of the components copied by {@link #copyStaticComponents}
+     */
+    private final BitSet staticTypes;
+
+    protected RespawnCopier(BitSet staticTypes) {
+        this.staticTypes = staticTypes;
+    }
+
+    /**
+     * Copies the statically declared components of {@code from} into {@code to}.
+     *
+     * <p> Both containers must be instances of the class this copier was generated for.
+     */
+    protected abstract void copyStaticComponents(FastComponentContainer<?> from, FastComponentContainer<?> to, boolean lossless, boolean keepInventory);
+
+    public final void copy(FastComponentContainer<?> from, FastComponentContainer<?> to, boolean lossless, boolean keepInventory) {
+        this.copyStaticComponents(from, to, lossless, keepInventory);
+        if (from.dynamicSize() > 0) {
+            FastComponentContainer.Cursor<?> cursor = from.cursor();
+            while (cursor.advance()) {
+                if (!this.staticTypes.get(cursor.getType().getRawId())) {
+                    CardinalEntityInternals.copyForRespawn(cursor.getType(), cursor.getComponent(), to, lossless, keepInventory);
+                }
+            }
+        }
+    }
+}
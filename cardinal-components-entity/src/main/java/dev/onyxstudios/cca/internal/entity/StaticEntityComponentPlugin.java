@@ -26,22 +26,41 @@ import dev.onyxstudios.cca.api.v3.component.ComponentKey;
 import dev.onyxstudios.cca.api.v3.component.entity.EntityComponentFactory;
 import dev.onyxstudios.cca.api.v3.component.entity.EntityComponentFactoryRegistry;
 import dev.onyxstudios.cca.api.v3.component.entity.EntityComponentInitializer;
+import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
 import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
 import dev.onyxstudios.cca.internal.base.LazyDispatcher;
+import dev.onyxstudios.cca.internal.base.asm.CcaAsmHelper;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentLoadingException;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentPluginBase;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.event.EntityComponentCallback;
+import nerdhub.cardinal.components.api.util.RespawnCopyStrategy;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.Identifier;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public final class StaticEntityComponentPlugin extends LazyDispatcher implements EntityComponentFactoryRegistry {
     public static final StaticEntityComponentPlugin INSTANCE = new StaticEntityComponentPlugin();
+    private static final String RESPAWN_COPIER = "dev/onyxstudios/cca/_generated_/RespawnCopier";
+    private static final String RESPAWN_COPIER_CTOR_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(BitSet.class), Type.getType(RespawnCopyStrategy[].class));
+    private static final String COPY_STATIC_COMPONENTS_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(FastComponentContainer.class), Type.getType(FastComponentContainer.class), Type.BOOLEAN_TYPE, Type.BOOLEAN_TYPE);
+    private static final String COPY_FOR_RESPAWN_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Component.class), Type.getType(Component.class), Type.BOOLEAN_TYPE, Type.BOOLEAN_TYPE);
 
     private StaticEntityComponentPlugin() {
         super("instantiating an entity");
@@ -53,8 +72,20 @@ public final class StaticEntityComponentPlugin extends LazyDispatcher implements
     }
 
     private final Map<Class<? extends Entity>, Map</*ComponentType*/Identifier, EntityComponentFactory<?, ?>>> componentFactories = new HashMap<>();
-    private final Map<Class<? extends Entity>, Class<? extends ComponentContainer<?>>> containerClasses = new HashMap<>();
-    private final Map<Key, Class<? extends DynamicContainerFactory<?,?>>> factoryClasses = new HashMap<>();
+    /**
+     * Classes generated for each entity class with static components.
+     * Each holder is guarded by its own monitor, so that classes for unrelated entities can be generated concurrently.
+     */
+    private final ClassValue<DedicatedClasses> dedicatedClasses = new ClassValue<DedicatedClasses>() {
+        @Override
+        protected DedicatedClasses computeValue(Class<?> type) {
+            return new DedicatedClasses();
+        }
+    };
+    /**
+     * Holders of the generated container classes, indexed by container class
+     */
+    private final Map<Class<?>, DedicatedClasses> containerOwners = new ConcurrentHashMap<>();
 
     public boolean requiresStaticFactory(Class<? extends Entity> entityClass) {
         this.ensureInitialized();
@@ -64,31 +95,155 @@ public final class StaticEntityComponentPlugin extends LazyDispatcher implements
     public Class<? extends DynamicContainerFactory<?,? extends Component>> spinDedicatedFactory(Key key) {
         this.ensureInitialized();
 
-        // we need a cache as this method is called for a given class each time one of its subclasses is loaded.
-        return this.factoryClasses.computeIfAbsent(key, k -> {
-            Class<? extends Entity> entityClass = k.entityClass;
-
-            Map<Identifier, EntityComponentFactory<?, ?>> compiled = new LinkedHashMap<>(this.componentFactories.getOrDefault(entityClass, Collections.emptyMap()));
-            Class<?> type = entityClass;
+        Class<? extends Entity> entityClass = key.entityClass;
+        DedicatedClasses classes = this.dedicatedClasses.get(entityClass);
 
-            while (type != Entity.class) {
-                type = type.getSuperclass();
-                this.componentFactories.getOrDefault(type, Collections.emptyMap()).forEach(compiled::putIfAbsent);
+        // we need a cache as this method is called for a given class each time one of its subclasses is loaded.
+        synchronized (classes) {
+            Class<? extends DynamicContainerFactory<?, ?>> existing = classes.factoryClasses.get(key.eventCount);
+            if (existing != null) {
+                return existing;
             }
 
             String implSuffix = getSuffix(entityClass);
 
             try {
-                Class<? extends ComponentContainer<?>> containerCls = this.containerClasses.get(entityClass);
+                Class<? extends ComponentContainer<?>> containerCls = classes.containerClass;
                 if (containerCls == null) {
-                    containerCls = StaticComponentPluginBase.spinComponentContainer(EntityComponentFactory.class, compiled, implSuffix);
-                    this.containerClasses.put(entityClass, containerCls);
+                    Map<Identifier, EntityComponentFactory<?, ?>> compiled = new LinkedHashMap<>(this.componentFactories.getOrDefault(entityClass, Collections.emptyMap()));
+                    Class<?> type = entityClass;
+
+                    while (type != Entity.class) {
+                        type = type.getSuperclass();
+                        this.componentFactories.getOrDefault(type, Collections.emptyMap()).forEach(compiled::putIfAbsent);
+                    }
+
+                    containerCls = classes.containerClass = StaticComponentPluginBase.spinComponentContainer(EntityComponentFactory.class, compiled, implSuffix);
+                    classes.componentIds = new ArrayList<>(compiled.keySet());
+                    classes.implSuffix = implSuffix;
+                    this.containerOwners.put(containerCls, classes);
                 }
-                return StaticComponentPluginBase.spinContainerFactory(implSuffix + "_" + k.eventCount, DynamicContainerFactory.class, containerCls, EntityComponentCallback.class, k.eventCount, entityClass);
+                Class<? extends DynamicContainerFactory<?, ?>> factoryClass = StaticComponentPluginBase.spinContainerFactory(implSuffix + "_" + key.eventCount, DynamicContainerFactory.class, containerCls, EntityComponentCallback.class, key.eventCount, entityClass);
+                classes.factoryClasses.put(key.eventCount, factoryClass);
+                return factoryClass;
             } catch (IOException e) {
                 throw new StaticComponentLoadingException("Failed to generate a dedicated component container for " + entityClass, e);
             }
-        });
+        }
+    }
+
+    /**
+     * Creates a copier that calls the respawn copy strategy of each static component in containers of the given class
+     * directly, without looking strategies up by component type.
+     *
+     * @param containerClass the class of the component containers to copy
+     * @param strategies     a function resolving the copy strategy of a static component
+     * @return a new respawn copier, or {@code null} if {@code containerClass} was not generated by this plugin
+     */
+    @Nullable
+    public RespawnCopier createRespawnCopier(Class<?> containerClass, Function<Identifier, RespawnCopyStrategy<?>> strategies) {
+        DedicatedClasses classes = this.containerOwners.get(containerClass);
+        if (classes == null || CcaAsmHelper.LAZY_COMPONENTS) {
+            // lazy getters would instantiate every component of the original player
+            return null;
+        }
+
+        Class<? extends RespawnCopier> copierClass;
+        synchronized (classes) {
+            copierClass = classes.respawnCopierClass;
+            if (copierClass == null) {
+                try {
+                    copierClass = classes.respawnCopierClass = spinRespawnCopier(classes.implSuffix, containerClass, classes.componentIds);
+                } catch (IOException e) {
+                    throw new StaticComponentLoadingException("Failed to generate a respawn copier for " + containerClass, e);
+                }
+            }
+        }
+
+        BitSet staticTypes = new BitSet();
+        RespawnCopyStrategy<?>[] resolved = new RespawnCopyStrategy<?>[classes.componentIds.size()];
+        for (int i = 0; i < resolved.length; i++) {
+            Identifier componentId = classes.componentIds.get(i);
+            staticTypes.set(((ComponentRegistryImpl) ComponentRegistry.INSTANCE).assignRawId(componentId));
+            resolved[i] = strategies.apply(componentId);
+        }
+
+        try {
+            return copierClass.getConstructor(BitSet.class, RespawnCopyStrategy[].class).newInstance(staticTypes, resolved);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+            throw new StaticComponentLoadingException("Failed to instantiate the respawn copier for " + containerClass, e);
+        }
+    }
+
+    /**
+     * Generates a {@link RespawnCopier} subclass holding one strategy field per static component.
+     * The generated {@code copyStaticComponents} method is equivalent to:
+     * <pre>{@code
+     * GeneratedComponentContainer_X f = (GeneratedComponentContainer_X) from;
+     * GeneratedComponentContainer_X t = (GeneratedComponentContainer_X) to;
+     * this.strategy$0.copyForRespawn(f.get$a(), t.get$a(), lossless, keepInventory);
+     * this.strategy$1.copyForRespawn(f.get$b(), t.get$b(), lossless, keepInventory);
+     * }</pre>
+     */
+    private static Class<? extends RespawnCopier> spinRespawnCopier(String implSuffix, Class<?> containerClass, List<Identifier> componentIds) throws IOException {
+        String copierImplName = RESPAWN_COPIER + '_' + implSuffix;
+        String containerImplName = Type.getInternalName(containerClass);
+        String strategyName = Type.getInternalName(RespawnCopyStrategy.class);
+        String strategyDesc = Type.getDescriptor(RespawnCopyStrategy.class);
+        ClassNode classNode = new ClassNode(CcaAsmHelper.ASM_VERSION);
+        classNode.visit(
+            Opcodes.V1_8,
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+            copierImplName,
+            null,
+            Type.getInternalName(RespawnCopier.class),
+            null
+        );
+        MethodVisitor init = classNode.visitMethod(Opcodes.ACC_PUBLIC, "<init>", RESPAWN_COPIER_CTOR_DESC, null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 1);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(RespawnCopier.class), "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(BitSet.class)), false);
+        MethodVisitor copy = classNode.visitMethod(Opcodes.ACC_PROTECTED, "copyStaticComponents", COPY_STATIC_COMPONENTS_DESC, null, null);
+        copy.visitCode();
+        copy.visitVarInsn(Opcodes.ALOAD, 1);
+        copy.visitTypeInsn(Opcodes.CHECKCAST, containerImplName);
+        copy.visitVarInsn(Opcodes.ASTORE, 5);
+        copy.visitVarInsn(Opcodes.ALOAD, 2);
+        copy.visitTypeInsn(Opcodes.CHECKCAST, containerImplName);
+        copy.visitVarInsn(Opcodes.ASTORE, 6);
+
+        for (int i = 0; i < componentIds.size(); i++) {
+            Identifier identifier = componentIds.get(i);
+            String fieldName = "strategy$" + i;
+            classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, fieldName, strategyDesc, null, null).visitEnd();
+
+            /* constructor: this.strategy$i = strategies[i] */
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitVarInsn(Opcodes.ALOAD, 2);
+            init.visitLdcInsn(i);
+            init.visitInsn(Opcodes.AALOAD);
+            // stack: <this> strategy
+            init.visitFieldInsn(Opcodes.PUTFIELD, copierImplName, fieldName, strategyDesc);
+
+            /* copyStaticComponents: this.strategy$i.copyForRespawn(from.get$id(), to.get$id(), lossless, keepInventory) */
+            copy.visitVarInsn(Opcodes.ALOAD, 0);
+            copy.visitFieldInsn(Opcodes.GETFIELD, copierImplName, fieldName, strategyDesc);
+            copy.visitVarInsn(Opcodes.ALOAD, 5);
+            copy.visitMethodInsn(Opcodes.INVOKEVIRTUAL, containerImplName, CcaAsmHelper.getStaticStorageGetterName(identifier), CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC, false);
+            copy.visitVarInsn(Opcodes.ALOAD, 6);
+            copy.visitMethodInsn(Opcodes.INVOKEVIRTUAL, containerImplName, CcaAsmHelper.getStaticStorageGetterName(identifier), CcaAsmHelper.STATIC_CONTAINER_GETTER_DESC, false);
+            // stack: strategy fromComponent toComponent
+            copy.visitVarInsn(Opcodes.ILOAD, 3);
+            copy.visitVarInsn(Opcodes.ILOAD, 4);
+            copy.visitMethodInsn(Opcodes.INVOKEINTERFACE, strategyName, "copyForRespawn", COPY_FOR_RESPAWN_DESC, true);
+        }
+
+        init.visitInsn(Opcodes.RETURN);
+        init.visitEnd();
+        copy.visitInsn(Opcodes.RETURN);
+        copy.visitEnd();
+        return CcaAsmHelper.generateClass(classNode).asSubclass(RespawnCopier.class);
     }
 
     @Override
@@ -116,6 +271,22 @@ public final class StaticEntityComponentPlugin extends LazyDispatcher implements
         specializedMap.put(type.getId(), checked);
     }
 
+    private static final class DedicatedClasses {
+        @Nullable
+        Class<? extends ComponentContainer<?>> containerClass;
+        /**
+         * Ids of the static components in {@link #containerClass}, set together with it
+         */
+        List<Identifier> componentIds;
+        String implSuffix;
+        @Nullable
+        Class<? extends RespawnCopier> respawnCopierClass;
+        /**
+         * Factory classes, indexed by the number of events they invoke
+         */
+        final Int2ObjectMap<Class<? extends DynamicContainerFactory<?, ?>>> factoryClasses = new Int2ObjectOpenHashMap<>();
+    }
+
     static class Key {
         final int eventCount;
         final Class<? extends Entity> entityClass;
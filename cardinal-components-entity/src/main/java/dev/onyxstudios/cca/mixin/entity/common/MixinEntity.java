@@ -53,7 +53,7 @@ public abstract class MixinEntity implements InternalComponentProvider {
 
     @Inject(method = "toTag", at = @At("RETURN"))
     private void toTag(CompoundTag inputTag, CallbackInfoReturnable<CompoundTag> cir) {
-        this.components.toTag(cir.getReturnValue());
+        CardinalEntityInternals.writeComponents(this.components, cir.getReturnValue());
     }
 
     @Inject(method = "fromTag", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;readCustomDataFromTag(Lnet/minecraft/nbt/CompoundTag;)V", shift = At.Shift.AFTER))
@@ -22,17 +22,25 @@
  */
 package nerdhub.cardinal.components;
 
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
-import nerdhub.cardinal.components.api.ComponentRegistry;
+import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import dev.onyxstudios.cca.internal.base.PendingComponentUpdate;
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import dev.onyxstudios.cca.internal.entity.CardinalEntityInternals;
+import dev.onyxstudios.cca.internal.entity.EntitySyncChannel;
+import dev.onyxstudios.cca.internal.entity.RespawnCopier;
 import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
 import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import nerdhub.cardinal.components.api.event.PlayerCopyCallback;
 import nerdhub.cardinal.components.api.event.PlayerSyncCallback;
 import nerdhub.cardinal.components.api.event.TrackingStartCallback;
-import nerdhub.cardinal.components.api.util.EntityComponents;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import nerdhub.cardinal.components.api.util.sync.EntitySyncedComponent;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.Entity;
 import net.minecraft.network.PacketByteBuf;
@@ -40,7 +48,17 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 import net.minecraft.world.GameRules;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class CardinalComponentsEntity {
+    /**
+     * Channel used instead of {@link EntitySyncedComponent#PACKET_ID} for clients that received the raw id map.
+     * Packets have the same layout, except that the component type is written using the
+     * compact encoding of {@link ComponentsBaseNetworking}.
+     */
+    public static final Identifier COMPACT_PACKET_ID = new Identifier("cardinal-components", "entity_sync_compact");
+
     public static void init() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
             PlayerSyncCallback.EVENT.register(player -> syncEntityComponents(player, player));
@@ -49,48 +67,82 @@ public final class CardinalComponentsEntity {
         PlayerCopyCallback.EVENT.register(CardinalComponentsEntity::copyData);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
     private static void copyData(ServerPlayerEntity original, ServerPlayerEntity clone, boolean lossless) {
         boolean keepInventory = original.world.getGameRules().getBoolean(GameRules.KEEP_INVENTORY) || clone.isSpectator();
-        ComponentProvider.fromEntity(original).forEachComponent((type, from) -> type.maybeGet(clone).ifPresent(
-            to -> EntityComponents.getRespawnCopyStrategy((ComponentType) type).copyForRespawn(from, to, lossless, keepInventory)
-        ));
+        ComponentContainer<?> from = ((InternalComponentProvider) ComponentProvider.fromEntity(original)).getComponentContainer();
+        ComponentContainer<?> to = ((InternalComponentProvider) ComponentProvider.fromEntity(clone)).getComponentContainer();
+        RespawnCopier copier = from.getClass() == to.getClass() ? CardinalEntityInternals.getRespawnCopier(from.getClass()) : null;
+        if (copier != null) {
+            copier.copy((FastComponentContainer<?>) from, (FastComponentContainer<?>) to, lossless, keepInventory);
+        } else if (from instanceof FastComponentContainer) {
+            FastComponentContainer.Cursor<?> cursor = ((FastComponentContainer<?>) from).cursor();
+            while (cursor.advance()) {
+                CardinalEntityInternals.copyForRespawn(cursor.getType(), cursor.getComponent(), to, lossless, keepInventory);
+            }
+        } else {
+            from.forEach((type, component) -> CardinalEntityInternals.copyForRespawn(type, component, to, lossless, keepInventory));
+        }
     }
 
     private static void syncEntityComponents(ServerPlayerEntity player, Entity tracked) {
-        ComponentProvider.fromEntity(tracked).forEachComponent((componentType, component) -> {
-            if (component instanceof SyncedComponent) {
-                ((SyncedComponent) component).syncWith(player);
+        ComponentContainer<?> components = ((InternalComponentProvider) ComponentProvider.fromEntity(tracked)).getComponentContainer();
+        List<SyncedComponent> synced = new ArrayList<>();
+        if (components instanceof FastComponentContainer) {
+            FastComponentContainer.Cursor<?> cursor = ((FastComponentContainer<?>) components).cursor();
+            while (cursor.advance()) {
+                if (cursor.getComponent() instanceof SyncedComponent) {
+                    synced.add((SyncedComponent) cursor.getComponent());
+                }
             }
-        });
+        } else {
+            components.forEach((componentType, component) -> {
+                if (component instanceof SyncedComponent) {
+                    synced.add((SyncedComponent) component);
+                }
+            });
+        }
+        if (!synced.isEmpty()) {
+            EntitySyncChannel.INSTANCE.syncWith(tracked, player, synced);
+        }
     }
 
     // Safe to put in the same class as no client-only class is directly referenced
     public static void initClient() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
-            ClientSidePacketRegistry.INSTANCE.register(EntitySyncedComponent.PACKET_ID, (context, buffer) -> {
+            ClientSidePacketRegistry.INSTANCE.register(EntitySyncedComponent.PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, false));
+            ClientSidePacketRegistry.INSTANCE.register(COMPACT_PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, true));
+            ClientSidePacketRegistry.INSTANCE.register(EntitySyncChannel.BUNDLE_PACKET_ID, CardinalComponentsEntity::processBundle);
+        }
+    }
+
+    private static void processSyncPacket(PacketContext context, PacketByteBuf buffer, boolean compact) {
+        try {
+            int entityId = buffer.readInt();
+            ComponentType<?> componentType = ComponentsBaseNetworking.readComponentType(buffer, compact);
+            if (componentType == null) {
+                return;
+            }
+            PendingComponentUpdate<?> update = PendingComponentUpdate.read(componentType, new PacketByteBuf(buffer.retainedSlice()), false);
+            context.getTaskQueue().execute(() -> {
                 try {
-                    int entityId = buffer.readInt();
-                    Identifier componentTypeId = buffer.readIdentifier();
-                    ComponentType<?> componentType = ComponentRegistry.INSTANCE.get(componentTypeId);
-                    if (componentType == null) {
-                        return;
-                    }
-                    PacketByteBuf copy = new PacketByteBuf(buffer.copy());
-                    context.getTaskQueue().execute(() -> {
-                        try {
-                            componentType.maybeGet(context.getPlayer().world.getEntityById(entityId))
-                                .filter(c -> c instanceof SyncedComponent)
-                                .ifPresent(c -> ((SyncedComponent) c).processPacket(context, copy));
-                        } finally {
-                            copy.release();
-                        }
-                    });
-                } catch (Exception e) {
-                    ComponentsInternals.LOGGER.error("Error while reading entity components from network", e);
-                    throw e;
+                    update.apply(context, context.getPlayer().world.getEntityById(entityId));
+                } finally {
+                    update.release();
                 }
             });
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading entity components from network", e);
+            throw e;
+        }
+    }
+
+    private static void processBundle(PacketContext context, PacketByteBuf buffer) {
+        try {
+            int entityId = buffer.readInt();
+            SyncChannel.processBundle(context, buffer, () -> context.getPlayer().world.getEntityById(entityId));
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading entity components from network", e);
+            throw e;
         }
     }
 }
@@ -22,6 +22,7 @@
  */
 package nerdhub.cardinal.components.api.util;
 
+import dev.onyxstudios.cca.api.v3.util.TransferableComponent;
 import dev.onyxstudios.cca.internal.entity.CardinalEntityInternals;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
@@ -29,6 +30,7 @@ import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 import nerdhub.cardinal.components.api.event.PlayerCopyCallback;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.GameRules;
+import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Represents a strategy to copy a component from a player to another.
@@ -85,6 +87,16 @@ public interface RespawnCopyStrategy<C extends Component> {
      */
     RespawnCopyStrategy<Component> NEVER_COPY = (from, to, lossless, keepInventory) -> {};
 
+    /**
+     * Always move a component's data to the new player no matter the cause of respawn.
+     * This strategy is relevant for the same data as {@link #ALWAYS_COPY}, when the component
+     * implements {@link TransferableComponent} and does not need its original data after the respawn.
+     *
+     * @see #transfer(Component, Component)
+     */
+    @ApiStatus.Experimental
+    RespawnCopyStrategy<Component> TRANSFER = (from, to, lossless, keepInventory) -> transfer(from, to);
+
     /**
      * Copies data from one component to the other.
      *
@@ -102,4 +114,24 @@ public interface RespawnCopyStrategy<C extends Component> {
             to.fromTag(from.toTag(new CompoundTag()));
         }
     }
+
+    /**
+     * Moves data from one component to the other, as part of a respawn.
+     *
+     * <p> If {@code to} implements {@link TransferableComponent}, its {@link TransferableComponent#transferFrom(Component)}
+     * method will be called, otherwise data will be {@linkplain #copy(Component, Component) copied}.
+     * The {@link #TRANSFER} strategy uses this method, and custom strategies may use it as well
+     * when the original component's data is not needed after respawning.
+     *
+     * @param from the component to take data from
+     * @param to the component to move data to
+     * @param <C> the common component type
+     */
+    static <C extends Component> void transfer(C from, C to) {
+        if (to instanceof TransferableComponent) {
+            CardinalEntityInternals.transferAsTransferable(from, (TransferableComponent<?>) to);
+        } else {
+            copy(from, to);
+        }
+    }
 }
@@ -22,20 +22,25 @@
  */
 package nerdhub.cardinal.components.api.util.sync;
 
+import dev.onyxstudios.cca.internal.base.ComponentSyncScheduler;
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import dev.onyxstudios.cca.internal.entity.EntitySyncChannel;
 import io.netty.buffer.Unpooled;
+import nerdhub.cardinal.components.CardinalComponentsEntity;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
 import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import nerdhub.cardinal.components.api.component.extension.TypeAwareComponent;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
-import net.fabricmc.fabric.api.server.PlayerStream;
 import net.minecraft.entity.Entity;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
+import java.util.Collections;
+
 /**
  * Default implementations of {@link SyncedComponent} methods, specialized for entity components
  */
@@ -55,24 +60,30 @@ public interface EntitySyncedComponent extends BaseSyncedComponent {
 
     /**
      * {@inheritDoc}
-     * @implNote The default implementation should generally be overridden.
-     * This implementation performs a linear-time lookup on the provider to find the component type
-     * this component is associated with.
-     * Implementing classes can nearly always provide a better implementation.
+     * @implNote This implementation uses {@link TypeAwareComponent#lookupComponentType},
+     * which compares this component by identity with those held by the provider's component container.
      */
     @Override
     default ComponentType<?> getComponentType() {
         return TypeAwareComponent.lookupComponentType(ComponentProvider.fromEntity(this.getEntity()), this);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote The default implementation sends this component's data to the entity and every player
+     * watching it immediately. If {@link #shouldDeferSync()} returns {@code true}, the data is instead sent
+     * at the end of the current server tick, bundled with the other components of the same entity
+     * synchronized during that tick.
+     */
     @Override
     default void sync() {
         if (!this.getEntity().world.isClient) {
-            Entity holder = this.getEntity();
-            if (holder instanceof ServerPlayerEntity && ((ServerPlayerEntity) holder).networkHandler != null) {
-                this.syncWith((ServerPlayerEntity) holder);
+            if (this.shouldDeferSync()) {
+                ComponentSyncScheduler.schedule(EntitySyncChannel.INSTANCE, this.getEntity(), this);
+            } else {
+                EntitySyncChannel.INSTANCE.sync(this.getEntity(), Collections.singleton(this));
             }
-            PlayerStream.watching(holder).map(ServerPlayerEntity.class::cast).forEach(this::syncWith);
         }
     }
 
@@ -80,9 +91,9 @@ public interface EntitySyncedComponent extends BaseSyncedComponent {
     default void syncWith(ServerPlayerEntity player) {
         PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
         buf.writeInt(this.getEntity().getEntityId());
-        buf.writeIdentifier(this.getComponentType().getId());
+        boolean compact = ComponentsBaseNetworking.writeComponentType(player, buf, this.getComponentType());
         this.writeToPacket(buf);
-        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, PACKET_ID, buf);
+        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, compact ? CardinalComponentsEntity.COMPACT_PACKET_ID : PACKET_ID, buf);
     }
 
     /**
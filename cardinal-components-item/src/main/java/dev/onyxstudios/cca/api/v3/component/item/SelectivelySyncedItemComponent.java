@@ -0,0 +1,50 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.api.v3.component.item;
+
+import nerdhub.cardinal.components.api.component.Component;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * An item component that does not always need to be known by clients.
+ *
+ * <p> By default, every component of an {@link ItemStack} is sent to clients
+ * along with the stack, unless it serializes to an empty tag. Components implementing
+ * this interface can additionally skip synchronization, for example when they only hold
+ * server-side data or when they are in their default state.
+ *
+ * @since 2.5.0
+ */
+@ApiStatus.Experimental
+public interface SelectivelySyncedItemComponent extends Component {
+    /**
+     * Returns {@code true} if this component's data should be sent to clients along with its stack.
+     *
+     * <p> When this method returns {@code false}, the client-side copy of the stack keeps
+     * the component in the state in which it was created by its factory.
+     *
+     * @return {@code true} if this component should be synchronized with clients
+     */
+    boolean shouldSyncToClient();
+}
@@ -22,8 +22,14 @@
  */
 package dev.onyxstudios.cca.internal.item;
 
+import com.google.common.annotations.VisibleForTesting;
+import dev.onyxstudios.cca.api.v3.component.item.SelectivelySyncedItemComponent;
+import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.handler.codec.EncoderException;
+import it.unimi.dsi.fastutil.objects.ReferenceArraySet;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
@@ -31,22 +37,40 @@ import nerdhub.cardinal.components.api.component.ComponentProvider;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 import nerdhub.cardinal.components.api.event.ItemComponentCallback;
 import nerdhub.cardinal.components.api.event.ItemComponentCallbackV2;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.fabric.api.event.EventFactory;
+import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 
 import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public final class CardinalItemInternals {
+    /**
+     * Key of the compound holding the components of an item stack sent over the network
+     */
+    public static final String SYNCED_COMPONENTS_KEY = "cca_synced_components";
+    private static final ItemComponentCallbackV2 NO_LISTENER_V2 = (item, stack, components) -> {};
+    private static final ItemComponentCallback NO_LISTENER = (stack, components) -> {};
     public static final Event<ItemComponentCallbackV2> WILDCARD_ITEM_EVENT_V2 = createItemComponentsEventV2();
     public static final Event<ItemComponentCallback> WILDCARD_ITEM_EVENT = createItemComponentsEvent(WILDCARD_ITEM_EVENT_V2);
 
     public static Event<ItemComponentCallbackV2> createItemComponentsEventV2() {
-        return EventFactory.createArrayBacked(ItemComponentCallbackV2.class,
+        return EventFactory.createArrayBacked(ItemComponentCallbackV2.class, NO_LISTENER_V2,
             (listeners) -> (item, stack, components) -> {
                 for (ItemComponentCallbackV2 listener : listeners) {
                     listener.initComponents(item, stack, components);
@@ -55,16 +79,61 @@ public final class CardinalItemInternals {
     }
 
     public static Event<ItemComponentCallback> createItemComponentsEvent(Event<ItemComponentCallbackV2> proxied) {
-        Event<ItemComponentCallback> ret = EventFactory.createArrayBacked(ItemComponentCallback.class,
+        Event<ItemComponentCallback> ret = EventFactory.createArrayBacked(ItemComponentCallback.class, NO_LISTENER,
             (listeners) -> (stack, components) -> {
                 for (ItemComponentCallback listener : listeners) {
                     listener.initComponents(stack, components);
                 }
             });
-        proxied.register((item, stack, components) -> ret.invoker().initComponents(stack, components));
+        proxied.register(new LegacyEventProxy(ret));
         return ret;
     }
 
+    /**
+     * Returns {@code true} if any listener may add components to the stacks of the given item,
+     * through either the item's own component event or the wildcard event.
+     */
+    public static boolean hasDynamicComponents(Item item) {
+        return hasDynamicComponents(((ItemCaller) item).cardinal_getItemComponentEventV2());
+    }
+
+    @VisibleForTesting
+    static boolean hasDynamicComponents(Event<ItemComponentCallbackV2> itemEvent) {
+        return hasListeners(WILDCARD_ITEM_EVENT_V2) || hasListeners(itemEvent);
+    }
+
+    /**
+     * Returns the statically declared component types of the stacks of the given item.
+     */
+    public static Set<ComponentType<?>> getStaticComponentTypes(Item item) {
+        BitSet rawIds = ((ItemCaller) item).cardinal_getStaticComponentTypes();
+        Set<ComponentType<?>> types = new ReferenceArraySet<>(rawIds.cardinality());
+        for (int rawId = rawIds.nextSetBit(0); rawId >= 0; rawId = rawIds.nextSetBit(rawId + 1)) {
+            types.add(ComponentRegistryImpl.byRawId(rawId));
+        }
+        return Collections.unmodifiableSet(types);
+    }
+
+    @VisibleForTesting
+    static boolean hasListeners(Event<ItemComponentCallbackV2> event) {
+        // events with a single listener use that listener as their invoker
+        ItemComponentCallbackV2 invoker = event.invoker();
+        return invoker != NO_LISTENER_V2 && !(invoker instanceof LegacyEventProxy && ((LegacyEventProxy) invoker).proxied.invoker() == NO_LISTENER);
+    }
+
+    private static final class LegacyEventProxy implements ItemComponentCallbackV2 {
+        final Event<ItemComponentCallback> proxied;
+
+        LegacyEventProxy(Event<ItemComponentCallback> proxied) {
+            this.proxied = proxied;
+        }
+
+        @Override
+        public void initComponents(Item item, ItemStack stack, ComponentContainer<CopyableComponent<?>> components) {
+            this.proxied.invoker().initComponents(stack, components);
+        }
+    }
+
     /**
      * Creates a container factory for an item id.
      *
@@ -78,33 +147,176 @@ public final class CardinalItemInternals {
     }
 
     public static void copyComponents(ItemStack original, ItemStack copy) {
-        ComponentProvider from = ComponentProvider.fromItemStack(original);
-        ((InternalComponentProvider) ComponentProvider.fromItemStack(copy)).getComponentContainer().forEach((type, component) -> {
-                copyComponent(type, (CopyableComponent<?>) component, from);
-            }
-        );
+        ComponentContainer<?> from = ((ItemStackAccess) (Object) original).cardinal_getComponentsIfCreated();
+        if (from == null || from.isEmpty()) {
+            // nothing to copy, the original's components are still in their initial state
+            return;
+        }
+        ComponentContainer<?> to = ((InternalComponentProvider) ComponentProvider.fromItemStack(copy)).getComponentContainer();
+        if (from instanceof FastComponentContainer && to instanceof FastComponentContainer) {
+            // generated containers copy their static components field to field when both stacks hold the same item
+            ((FastComponentContainer<?>) from).copyInto((FastComponentContainer<?>) to);
+        } else {
+            from.forEach((type, component) -> copyComponent(to.get(type), component));
+        }
     }
 
-    private static <C extends Component> void copyComponent(ComponentType<?> type, CopyableComponent<C> component, ComponentProvider from) {
-        @SuppressWarnings("unchecked") C fromComponent = (C) type.getNullable(from);
-        if (fromComponent != null) {
-            component.copyFrom(fromComponent);
+    private static <C extends Component> void copyComponent(@Nullable Component to, Component from) {
+        if (to != null) {
+            @SuppressWarnings("unchecked") CopyableComponent<C> copyable = (CopyableComponent<C>) to;
+            @SuppressWarnings("unchecked") C fromComponent = (C) from;
+            copyable.copyFrom(fromComponent);
         }
     }
 
     private static <C extends Component> void copyComponent(CopyableComponent<C> ccp, ComponentProvider from) {
     }
 
+    /**
+     * Writes the tag of an item stack to a packet, followed by the data of its components.
+     *
+     * <p> The result is equivalent to writing a copy of {@code tag} holding the stack's components
+     * under the {@value #SYNCED_COMPONENTS_KEY} key, but neither the tag nor the components' data is copied.
+     * Components {@linkplain SelectivelySyncedItemComponent opting out of synchronization} are skipped before
+     * being serialized.
+     * When the legacy NBT format is in use, every component is sent through the regular serialization instead.
+     *
+     * <p> This method may be called on a network thread, and therefore never touches the stack's change tracker.
+     *
+     * @param buf   the packet to write to
+     * @param tag   the tag vanilla would write for {@code stack}
+     * @param stack the stack being written
+     */
+    public static void writeSyncedTag(PacketByteBuf buf, @Nullable CompoundTag tag, ItemStack stack) {
+        ComponentContainer<?> components = ((ItemStackAccess) (Object) stack).cardinal_getComponentsIfCreated();
+        if (components == null || components.isEmpty()) {
+            buf.writeCompoundTag(tag);
+            return;
+        }
+        if (ComponentsInternals.useLegacyNbtFormat()) {
+            // older versions only understand the list format, go through the regular serialization
+            CompoundTag newTag = tag == null ? new CompoundTag() : tag.copy();
+            newTag.put(SYNCED_COMPONENTS_KEY, components.toTag(new CompoundTag()));
+            buf.writeCompoundTag(newTag);
+            return;
+        }
+        try {
+            ByteBufOutputStream out = new ByteBufOutputStream(buf);
+            int start = buf.writerIndex();
+            // root compound, as written by NbtIo
+            out.writeByte(NbtType.COMPOUND);
+            out.writeUTF("");
+            if (tag != null) {
+                for (String key : tag.getKeys()) {
+                    writeEntry(out, key, Objects.requireNonNull(tag.get(key)));
+                }
+            }
+            int componentsStart = buf.writerIndex();
+            out.writeByte(NbtType.COMPOUND);
+            out.writeUTF(SYNCED_COMPONENTS_KEY);
+            out.writeByte(NbtType.COMPOUND);
+            out.writeUTF(AbstractComponentContainer.NBT_KEY);
+            int dataStart = buf.writerIndex();
+            if (components instanceof FastComponentContainer) {
+                FastComponentContainer.Cursor<?> cursor = ((FastComponentContainer<?>) components).cursor();
+                while (cursor.advance()) {
+                    writeSyncedComponent(out, cursor.getType(), cursor.getComponent());
+                }
+            } else {
+                for (Map.Entry<ComponentType<?>, ? extends Component> entry : components.entrySet()) {
+                    writeSyncedComponent(out, entry.getKey(), entry.getValue());
+                }
+            }
+            if (buf.writerIndex() > dataStart) {
+                out.writeByte(NbtType.END);   // end of the component map
+                out.writeByte(NbtType.END);   // end of the synced components compound
+            } else if (tag == null) {
+                // nothing to send, write a null tag like vanilla
+                buf.writerIndex(start);
+                buf.writeByte(NbtType.END);
+                return;
+            } else {
+                buf.writerIndex(componentsStart);
+            }
+            out.writeByte(NbtType.END);
+        } catch (IOException e) {
+            throw new EncoderException(e);
+        }
+    }
+
+    private static void writeSyncedComponent(DataOutput out, ComponentType<?> type, Component component) throws IOException {
+        if (component instanceof SelectivelySyncedItemComponent && !((SelectivelySyncedItemComponent) component).shouldSyncToClient()) {
+            return;
+        }
+        writeEntry(out, type.getSerializedId(), component.toTag(new CompoundTag()));
+    }
+
+    private static void writeEntry(DataOutput out, String key, Tag value) throws IOException {
+        out.writeByte(value.getType());
+        out.writeUTF(key);
+        value.write(out);
+    }
+
+    /**
+     * Compares the components of two containers, without creating components that neither container created.
+     *
+     * <p> A component that was never created is in the state in which its factory would create it.
+     * When only one of the containers created a component, the other container's component is created
+     * to be compared with it.
+     */
+    @VisibleForTesting
+    static boolean areComponentsEqual(FastComponentContainer<?> first, FastComponentContainer<?> second) {
+        FastComponentContainer.Cursor<?> cursor = first.cursor();
+        while (cursor.advance()) {
+            @Nullable Component otherComponent = second.get(cursor.getType());
+            if (otherComponent == null || !cursor.getComponent().isComponentEqual(otherComponent)) {
+                return false;
+            }
+        }
+        // components only created by the second container have not been compared yet
+        cursor = second.cursor();
+        while (cursor.advance()) {
+            ComponentType<?> type = cursor.getType();
+            if (first.getIfCreated(type) == null) {
+                @Nullable Component component = first.get(type);
+                if (component == null || !component.isComponentEqual(cursor.getComponent())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public static boolean areComponentsIncompatible(ItemStack stack1, ItemStack stack2) {
         if (stack1.isEmpty() || stack2.isEmpty()) {
             return stack1.isEmpty() != stack2.isEmpty();
         }
         InternalComponentProvider accessor = (InternalComponentProvider) ComponentProvider.fromItemStack(stack1);
         InternalComponentProvider other = (InternalComponentProvider) ComponentProvider.fromItemStack(stack2);
+        if (((ItemStackAccess) (Object) stack1).cardinal_getComponentsIfCreated() == null
+            && ((ItemStackAccess) (Object) stack2).cardinal_getComponentsIfCreated() == null
+            && stack1.getItem() == stack2.getItem()) {
+            // both stacks still have the components their item's factories would create
+            return false;
+        }
         ComponentContainer<?> types = accessor.getComponentContainer();
         if (types.size() != other.getComponentContainer().size()) {
             return true;
         }
+        // fingerprints are only compared when both stacks can keep them cached, and created the same components
+        ComponentFingerprintCache fingerprints = ((ItemStackAccess) (Object) stack1).cardinal_getFingerprintCache();
+        if (fingerprints != null && fingerprints.hasFingerprint()) {
+            ComponentFingerprintCache otherFingerprints = ((ItemStackAccess) (Object) stack2).cardinal_getFingerprintCache();
+            if (otherFingerprints != null && otherFingerprints.hasFingerprint()
+                && fingerprints.isComparableWith(otherFingerprints)
+                && fingerprints.getFingerprint() != otherFingerprints.getFingerprint()) {
+                return true;
+            }
+        }
+        ComponentContainer<?> otherTypes = other.getComponentContainer();
+        if (types instanceof FastComponentContainer && otherTypes instanceof FastComponentContainer) {
+            return !areComponentsEqual((FastComponentContainer<?>) types, (FastComponentContainer<?>) otherTypes);
+        }
         for(Map.Entry<ComponentType<?>, ? extends Component> entry : types.entrySet()) {
             @Nullable Component otherComponent = other.getComponent(entry.getKey());
             if(otherComponent == null || !entry.getValue().isComponentEqual(otherComponent)) {
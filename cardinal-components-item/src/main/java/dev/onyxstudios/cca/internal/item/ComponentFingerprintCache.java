@@ -0,0 +1,148 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.item;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.extension.ChangeTrackingComponent;
+import nerdhub.cardinal.components.api.component.extension.FingerprintedComponent;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+
+/**
+ * Caches the combined fingerprint of the components of an item stack.
+ *
+ * <p> Lazily initialized components that were never created contribute nothing to the fingerprint.
+ * As such components are in the state their factory would create them in, a fingerprint only describes
+ * a container's components relative to the set of component types it created, and fingerprints of two containers
+ * are only {@linkplain #isComparableWith(ComponentFingerprintCache) comparable} when those sets are equal.
+ *
+ * @see FingerprintedComponent
+ */
+public final class ComponentFingerprintCache {
+    private final FastComponentContainer<?> components;
+    /**
+     * Change counts of every created component when the fingerprint was last computed, in iteration order,
+     * or {@code null} if no fingerprint is cached.
+     */
+    @Nullable
+    private int[] counts;
+    /**
+     * The number of components recorded in {@link #counts}
+     */
+    private int countedComponents;
+    /**
+     * Raw ids of the created components when the fingerprint was last computed
+     */
+    private final BitSet createdTypes = new BitSet();
+    private long fingerprint;
+
+    public ComponentFingerprintCache(FastComponentContainer<?> components) {
+        this.components = components;
+    }
+
+    /**
+     * Brings the cached fingerprint up to date, if the tracked container's components can be fingerprinted.
+     *
+     * <p> Fingerprints are only used when every created component implements both {@link FingerprintedComponent}
+     * and {@link ChangeTrackingComponent}. Recomputing the fingerprint of untracked components
+     * on every comparison would cost as much as comparing the components themselves.
+     *
+     * @return {@code true} if {@link #getFingerprint()} can be called
+     */
+    public boolean hasFingerprint() {
+        if (this.isUpToDate()) {
+            return true;
+        }
+        this.counts = null;
+        int[] counts = new int[this.components.size()];
+        BitSet createdTypes = this.createdTypes;
+        createdTypes.clear();
+        long fingerprint = 0L;
+        int i = 0;
+        FastComponentContainer.Cursor<?> cursor = this.components.cursor();
+        while (cursor.advance()) {
+            Component component = cursor.getComponent();
+            if (!(component instanceof FingerprintedComponent && component instanceof ChangeTrackingComponent)) {
+                return false;
+            }
+            int rawId = cursor.getType().getRawId();
+            counts[i++] = ((ChangeTrackingComponent) component).getChangeCount();
+            createdTypes.set(rawId);
+            // sum the mixed fingerprints so that the result does not depend on iteration order
+            fingerprint += HashCommon.mix(((FingerprintedComponent) component).getFingerprint() ^ HashCommon.mix((long) rawId));
+        }
+        this.counts = counts;
+        this.countedComponents = i;
+        this.fingerprint = fingerprint;
+        return true;
+    }
+
+    /**
+     * Returns the combined fingerprint of the tracked container's created components.
+     *
+     * <p> Containers that created the same component types and hold equal components have the same fingerprint,
+     * regardless of iteration order. Every value is a valid fingerprint.
+     *
+     * @throws IllegalStateException if the last call to {@link #hasFingerprint()} did not return {@code true}
+     */
+    public long getFingerprint() {
+        if (this.counts == null) {
+            throw new IllegalStateException("No fingerprint available");
+        }
+        return this.fingerprint;
+    }
+
+    /**
+     * Returns {@code true} if the fingerprints of this cache and {@code other} describe the same component types,
+     * meaning that different fingerprints imply different components.
+     *
+     * <p> Both caches must have an {@linkplain #hasFingerprint() up to date fingerprint}.
+     */
+    public boolean isComparableWith(ComponentFingerprintCache other) {
+        return this.createdTypes.equals(other.createdTypes);
+    }
+
+    private boolean isUpToDate() {
+        int[] counts = this.counts;
+        if (counts == null) {
+            return false;
+        }
+        int countedComponents = this.countedComponents;
+        int i = 0;
+        FastComponentContainer.Cursor<?> cursor = this.components.cursor();
+        while (cursor.advance()) {
+            // components never get removed, any additional component was created or added since
+            if (i >= countedComponents) {
+                return false;
+            }
+            // every component was tracked when the counts were recorded
+            if (((ChangeTrackingComponent) cursor.getComponent()).getChangeCount() != counts[i++]) {
+                return false;
+            }
+        }
+        return i == countedComponents;
+    }
+}
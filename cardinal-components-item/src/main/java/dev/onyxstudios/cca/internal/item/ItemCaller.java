@@ -29,9 +29,16 @@ import nerdhub.cardinal.components.api.event.ItemComponentCallbackV2;
 import net.fabricmc.fabric.api.event.Event;
 import net.minecraft.item.ItemStack;
 
+import java.util.BitSet;
+
 public interface ItemCaller {
 	Event<ItemComponentCallback> cardinal_getItemComponentEvent();
 	Event<ItemComponentCallbackV2> cardinal_getItemComponentEventV2();
 
 	ComponentContainer<CopyableComponent<?>> cardinal_createComponents(ItemStack stack);
+
+	/**
+	 * @return the raw ids of the statically declared components of this item's stacks
+	 */
+	BitSet cardinal_getStaticComponentTypes();
 }
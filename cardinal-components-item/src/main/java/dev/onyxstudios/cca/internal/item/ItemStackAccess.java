@@ -0,0 +1,47 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.item;
+
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
+
+import javax.annotation.Nullable;
+
+public interface ItemStackAccess {
+    /**
+     * Returns the component container of this stack if it has already been created, without creating it.
+     *
+     * <p>A stack that has no container yet holds its components in the state in which
+     * their factories would create them.
+     */
+    @Nullable
+    ComponentContainer<CopyableComponent<?>> cardinal_getComponentsIfCreated();
+
+    /**
+     * Returns the cache holding the combined fingerprint of this stack's components, creating them if needed.
+     *
+     * @return the fingerprint cache, or {@code null} if this stack's components cannot be fingerprinted
+     */
+    @Nullable
+    ComponentFingerprintCache cardinal_getFingerprintCache();
+}
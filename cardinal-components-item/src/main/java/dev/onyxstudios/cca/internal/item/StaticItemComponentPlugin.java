@@ -27,10 +27,12 @@ import dev.onyxstudios.cca.api.v3.component.item.ItemComponentFactory;
 import dev.onyxstudios.cca.api.v3.component.item.ItemComponentFactoryRegistry;
 import dev.onyxstudios.cca.api.v3.component.item.ItemComponentFactoryV2;
 import dev.onyxstudios.cca.api.v3.component.item.ItemComponentInitializer;
+import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
 import dev.onyxstudios.cca.internal.base.LazyDispatcher;
 import dev.onyxstudios.cca.internal.base.asm.CcaAsmHelper;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentLoadingException;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentPluginBase;
+import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 import nerdhub.cardinal.components.api.event.ItemComponentCallbackV2;
@@ -41,10 +43,12 @@ import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public final class StaticItemComponentPlugin extends LazyDispatcher implements ItemComponentFactoryRegistry {
     public static final StaticItemComponentPlugin INSTANCE = new StaticItemComponentPlugin();
@@ -60,7 +64,9 @@ public final class StaticItemComponentPlugin extends LazyDispatcher implements I
 
     private final Map<@Nullable Identifier, Map</*ComponentType*/Identifier, ItemComponentFactoryV2<?>>> componentFactories = new HashMap<>();
     private final Map<Identifier, Class<? extends ItemComponentContainerFactory>> factoryClasses = new HashMap<>();
+    private final Map<Identifier, BitSet> staticComponentTypes = new HashMap<>();
     private Class<? extends ItemComponentContainerFactory> wildcardFactoryClass;
+    private BitSet wildcardComponentTypes;
 
     public Class<? extends ItemComponentContainerFactory> getFactoryClass(Identifier itemId) {
         this.ensureInitialized();
@@ -72,6 +78,29 @@ public final class StaticItemComponentPlugin extends LazyDispatcher implements I
         return this.wildcardFactoryClass;
     }
 
+    /**
+     * Returns the raw ids of the statically declared components of stacks of the given item.
+     *
+     * <p>The returned set is shared and must not be modified.
+     */
+    public BitSet getStaticComponentTypes(Identifier itemId) {
+        this.ensureInitialized();
+        BitSet specificTypes = this.staticComponentTypes.get(itemId);
+        if (specificTypes != null) {
+            return specificTypes;
+        }
+        assert this.wildcardComponentTypes != null;
+        return this.wildcardComponentTypes;
+    }
+
+    private static BitSet getRawIds(Set<Identifier> componentIds) {
+        BitSet rawIds = new BitSet();
+        for (Identifier componentId : componentIds) {
+            rawIds.set(((ComponentRegistryImpl) ComponentRegistry.INSTANCE).assignRawId(componentId));
+        }
+        return rawIds;
+    }
+
     @Override
     protected void init() {
         StaticComponentPluginBase.processInitializers(
@@ -82,6 +111,7 @@ public final class StaticItemComponentPlugin extends LazyDispatcher implements I
         try {
             Class<? extends ComponentContainer<?>> containerCls = StaticComponentPluginBase.spinComponentContainer(ItemComponentFactoryV2.class, wildcardMap, WILDARD_IMPL_SUFFIX);
             this.wildcardFactoryClass = StaticComponentPluginBase.spinContainerFactory(WILDARD_IMPL_SUFFIX, ItemComponentContainerFactory.class, containerCls, ItemComponentCallbackV2.class, 2, Item.class, ItemStack.class);
+            this.wildcardComponentTypes = getRawIds(wildcardMap.keySet());
         } catch (IOException e) {
             throw new StaticComponentLoadingException("Failed to generate the fallback component container for item stacks", e);
         }
@@ -93,6 +123,7 @@ public final class StaticItemComponentPlugin extends LazyDispatcher implements I
                 String implSuffix = getSuffix(entry.getKey());
                 Class<? extends ComponentContainer<?>> containerCls = StaticComponentPluginBase.spinComponentContainer(ItemComponentFactoryV2.class, compiled, implSuffix);
                 this.factoryClasses.put(entry.getKey(), StaticComponentPluginBase.spinContainerFactory(implSuffix, ItemComponentContainerFactory.class, containerCls, ItemComponentCallbackV2.class, 2, Item.class, ItemStack.class));
+                this.staticComponentTypes.put(entry.getKey(), getRawIds(compiled.keySet()));
             } catch (IOException e) {
                 throw new StaticComponentLoadingException("Failed to generate a dedicated component container for " + entry.getKey(), e);
             }
@@ -25,6 +25,7 @@ package dev.onyxstudios.cca.mixin.item.common;
 import dev.onyxstudios.cca.internal.item.CardinalItemInternals;
 import dev.onyxstudios.cca.internal.item.ItemCaller;
 import dev.onyxstudios.cca.internal.item.ItemComponentContainerFactory;
+import dev.onyxstudios.cca.internal.item.StaticItemComponentPlugin;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
 import nerdhub.cardinal.components.api.event.ItemComponentCallback;
@@ -32,14 +33,18 @@ import nerdhub.cardinal.components.api.event.ItemComponentCallbackV2;
 import net.fabricmc.fabric.api.event.Event;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.registry.Registry;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 
+import java.util.BitSet;
+
 @Mixin(Item.class)
 public abstract class MixinItem implements ItemCaller {
     @Unique private final Event<ItemComponentCallbackV2> cardinal_componentsEventV2 = CardinalItemInternals.createItemComponentsEventV2();
     @Unique private final Event<ItemComponentCallback> cardinal_componentsEvent = CardinalItemInternals.createItemComponentsEvent(this.cardinal_componentsEventV2);
     @Unique private ItemComponentContainerFactory cardinal_containerFactory;
+    @Unique private BitSet cardinal_staticComponentTypes;
 
     @Override
     public Event<ItemComponentCallback> cardinal_getItemComponentEvent() {
@@ -59,4 +64,12 @@ public abstract class MixinItem implements ItemCaller {
         }
         return this.cardinal_containerFactory.create((Item) (Object) this, stack);
     }
+
+    @Override
+    public BitSet cardinal_getStaticComponentTypes() {
+        if (this.cardinal_staticComponentTypes == null) {
+            this.cardinal_staticComponentTypes = StaticItemComponentPlugin.INSTANCE.getStaticComponentTypes(Registry.ITEM.getId((Item) (Object) this));
+        }
+        return this.cardinal_staticComponentTypes;
+    }
 }
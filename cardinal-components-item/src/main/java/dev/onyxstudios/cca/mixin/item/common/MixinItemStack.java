@@ -22,15 +22,19 @@
  */
 package dev.onyxstudios.cca.mixin.item.common;
 
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
 import dev.onyxstudios.cca.internal.item.CardinalItemInternals;
+import dev.onyxstudios.cca.internal.item.ComponentFingerprintCache;
 import dev.onyxstudios.cca.internal.item.ItemCaller;
+import dev.onyxstudios.cca.internal.item.ItemStackAccess;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
 import nerdhub.cardinal.components.api.component.extension.CopyableComponent;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import net.minecraft.item.Item;
-import net.minecraft.item.ItemConvertible;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.CompoundTag;
@@ -50,9 +54,22 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 
 @Mixin(value = ItemStack.class, priority = 900)
-public abstract class MixinItemStack implements InternalComponentProvider {
+public abstract class MixinItemStack implements InternalComponentProvider, ItemStackAccess {
 
-    private ComponentContainer<CopyableComponent<?>> components;
+    /**
+     * This stack's components, only created when first needed.
+     *
+     * <p> Stacks are written to packets on network threads, so the container is published
+     * through this volatile field once fully created, and created at most once.
+     */
+    @Nullable
+    private volatile ComponentContainer<CopyableComponent<?>> components;
+    @Unique
+    @Nullable
+    private ComponentFingerprintCache fingerprints;
+    @Unique
+    @Nullable
+    private ComponentChangeTracker changeTracker;
 
     @Inject(method = "areTagsEqual", at = @At("RETURN"), cancellable = true)
     private static void areTagsEqual(ItemStack stack1, ItemStack stack2, CallbackInfoReturnable<Boolean> cir) {
@@ -77,7 +94,10 @@ public abstract class MixinItemStack implements InternalComponentProvider {
 
     @Inject(method = "toTag", at = @At("RETURN"))
     private void serialize(CompoundTag tag, CallbackInfoReturnable<CompoundTag> cir) {
-        this.components.toTag(cir.getReturnValue());
+        ComponentContainer<CopyableComponent<?>> components = this.components;
+        if (components != null) {
+            this.getChangeTracker(components).toTag(cir.getReturnValue());
+        }
     }
 
     @Shadow
@@ -100,50 +120,110 @@ public abstract class MixinItemStack implements InternalComponentProvider {
     @Final
     private Item item;
 
-    @Inject(method = "<init>(Lnet/minecraft/item/ItemConvertible;I)V", at = @At("RETURN"))
-    private void initComponents(ItemConvertible item, int amount, CallbackInfo ci) {
-        this.initComponents();
-    }
-
     @Inject(method = "<init>(Lnet/minecraft/nbt/CompoundTag;)V", at = @At("RETURN"))
     private void initComponentsNBT(CompoundTag tag, CallbackInfo ci) {
-        this.initComponents();
-        this.components.fromTag(tag);
+        if (tag.contains(AbstractComponentContainer.NBT_KEY)) {
+            this.getOrCreateComponents().fromTag(tag);
+        }
+    }
+
+    @Unique
+    private ComponentContainer<CopyableComponent<?>> getOrCreateComponents() {
+        ComponentContainer<CopyableComponent<?>> components = this.components;
+        if (components == null) {
+            synchronized (this) {
+                components = this.components;
+                if (components == null) {
+                    // we use the actual item type held by this stack, bypassing empty checks made by ItemStack#getItem(),
+                    // so as to avoid uninitialized components from empty stacks.
+                    components = this.components = ((ItemCaller) this.getComponentItem()).cardinal_createComponents((ItemStack) (Object) this);
+                }
+            }
+        }
+        return components;
+    }
+
+    @Unique
+    private Item getComponentItem() {
+        return this.item == null ? Items.AIR : this.item;
+    }
+
+    /**
+     * Returns {@code true} if this stack's component types can be known without creating its components.
+     */
+    @Unique
+    private boolean hasStaticComponentsOnly() {
+        return this.components == null && !CardinalItemInternals.hasDynamicComponents(this.getComponentItem());
+    }
+
+    @Nullable
+    @Override
+    public ComponentContainer<CopyableComponent<?>> cardinal_getComponentsIfCreated() {
+        return this.components;
     }
 
     @Unique
-    private void initComponents() {
-        // we use the actual item type held by this stack, bypassing empty checks made by ItemStack#getItem(),
-        // so as to avoid uninitialized components from empty stacks.
-        this.components = ((ItemCaller) (this.item == null ? Items.AIR : this.item)).cardinal_createComponents((ItemStack) (Object) this);
+    private ComponentChangeTracker getChangeTracker(ComponentContainer<CopyableComponent<?>> components) {
+        ComponentChangeTracker changeTracker = this.changeTracker;
+        if (changeTracker == null) {
+            // item stack tags get copied and compared all the time, snapshot tags would look empty
+            changeTracker = this.changeTracker = new ComponentChangeTracker(components, false);
+        }
+        return changeTracker;
+    }
+
+    @Nullable
+    @Override
+    public ComponentFingerprintCache cardinal_getFingerprintCache() {
+        ComponentFingerprintCache fingerprints = this.fingerprints;
+        if (fingerprints == null) {
+            ComponentContainer<CopyableComponent<?>> components = this.getOrCreateComponents();
+            if (!(components instanceof FastComponentContainer)) {
+                return null;
+            }
+            fingerprints = this.fingerprints = new ComponentFingerprintCache((FastComponentContainer<?>) components);
+        }
+        return fingerprints;
     }
 
     @Override
     public boolean hasComponent(ComponentType<?> type) {
-        return !this.isEmpty() && components.containsKey(type);
+        if (this.isEmpty()) {
+            return false;
+        }
+        if (this.hasStaticComponentsOnly()) {
+            return ((ItemCaller) this.getComponentItem()).cardinal_getStaticComponentTypes().get(type.getRawId());
+        }
+        return this.getOrCreateComponents().containsKey(type);
     }
 
     @Nullable
     @Override
     public <C extends Component> C getComponent(ComponentType<C> type) {
-        return this.isEmpty() ? null : components.get(type);
+        return this.isEmpty() ? null : this.getOrCreateComponents().get(type);
     }
 
     @Override
     public Set<ComponentType<?>> getComponentTypes() {
-        return this.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(components.keySet());
+        if (this.isEmpty()) {
+            return Collections.emptySet();
+        }
+        if (this.hasStaticComponentsOnly()) {
+            return CardinalItemInternals.getStaticComponentTypes(this.getComponentItem());
+        }
+        return Collections.unmodifiableSet(this.getOrCreateComponents().keySet());
     }
 
     @Override
     public void forEachComponent(BiConsumer<ComponentType<?>, Component> op) {
         if (!this.isEmpty()) {
-            this.components.forEach(op);
+            this.getOrCreateComponents().forEach(op);
         }
     }
 
     @Nonnull
     @Override
     public Object getStaticComponentContainer() {
-        return this.components;
+        return this.getOrCreateComponents();
     }
 }
@@ -23,14 +23,15 @@
 package dev.onyxstudios.cca.mixin.item.common;
 
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
-import nerdhub.cardinal.components.api.component.ComponentContainer;
+import dev.onyxstudios.cca.internal.item.CardinalItemInternals;
+import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.PacketByteBuf;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.ModifyVariable;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import javax.annotation.Nullable;
@@ -38,28 +39,21 @@ import javax.annotation.Nullable;
 @Mixin(PacketByteBuf.class)
 public abstract class MixinPacketByteBuf {
 
-    @Nullable
-    @ModifyVariable(method = "writeItemStack", at = @At(value = "LOAD"))
-    private CompoundTag markModdedStack(@Nullable CompoundTag tag, ItemStack stack) {
-        //noinspection ConstantConditions
-        ComponentContainer<?> componentContainer = ((InternalComponentProvider) (Object) stack).getComponentContainer();
-        if (componentContainer.isEmpty()) {
-            return tag;
-        }
-        CompoundTag newTag = tag == null ? new CompoundTag() : tag.copy();
-        newTag.put("cca_synced_components", componentContainer.toTag(new CompoundTag()));
-        return newTag;
+    @Redirect(method = "writeItemStack", at = @At(value = "INVOKE", target = "Lnet/minecraft/network/PacketByteBuf;writeCompoundTag(Lnet/minecraft/nbt/CompoundTag;)Lnet/minecraft/network/PacketByteBuf;"))
+    private PacketByteBuf writeStackTag(PacketByteBuf buf, @Nullable CompoundTag tag, ItemStack stack) {
+        CardinalItemInternals.writeSyncedTag(buf, tag, stack);
+        return buf;
     }
 
     @Inject(method = "readItemStack", at = @At(value = "RETURN", ordinal = 1))
     private void readStack(CallbackInfoReturnable<ItemStack> cir) {
         ItemStack stack = cir.getReturnValue();
+        CompoundTag tag = stack.getTag();
 
-        CompoundTag syncedComponents = stack.getSubTag("cca_synced_components");
-        if (syncedComponents != null) {
+        if (tag != null && tag.contains(CardinalItemInternals.SYNCED_COMPONENTS_KEY, NbtType.COMPOUND)) {
             //noinspection ConstantConditions
-            ((InternalComponentProvider) ((Object) stack)).getComponentContainer().fromTag(syncedComponents);
-            stack.removeSubTag("cca_synced_components");
+            ((InternalComponentProvider) ((Object) stack)).getComponentContainer().fromTag(tag.getCompound(CardinalItemInternals.SYNCED_COMPONENTS_KEY));
+            stack.removeSubTag(CardinalItemInternals.SYNCED_COMPONENTS_KEY);
         }
     }
 }
@@ -22,30 +22,46 @@
  */
 package dev.onyxstudios.cca.internal.level;
 
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
-import nerdhub.cardinal.components.api.ComponentRegistry;
+import dev.onyxstudios.cca.internal.base.PendingComponentUpdate;
+import dev.onyxstudios.cca.internal.base.SyncChannel;
 import nerdhub.cardinal.components.api.ComponentType;
-import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
 import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import nerdhub.cardinal.components.api.event.WorldSyncCallback;
 import nerdhub.cardinal.components.api.util.sync.LevelSyncedComponent;
 import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
+import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class ComponentsLevelNetworking {
+    /**
+     * Channel used instead of {@link LevelSyncedComponent#PACKET_ID} for clients that received the raw id map.
+     * Packets have the same layout, except that the component type is written using the
+     * compact encoding of {@link ComponentsBaseNetworking}.
+     */
+    public static final Identifier COMPACT_PACKET_ID = new Identifier("cardinal-components", "level_sync_compact");
+
     public static void init() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
             if (FabricLoader.getInstance().isModLoaded("cardinal-components-world")) {
                 WorldSyncCallback.EVENT.register((player, world) -> {
+                    List<SyncedComponent> synced = new ArrayList<>();
                     ComponentProvider.fromLevel(world.getLevelProperties()).forEachComponent((componentType, component) -> {
                                     if (component instanceof SyncedComponent) {
-                                        ((SyncedComponent) component).syncWith(player);
+                                        synced.add((SyncedComponent) component);
                                     }
                                 });
+                    if (!synced.isEmpty()) {
+                        LevelSyncChannel.INSTANCE.syncWith(player.server, player, synced);
+                    }
                 });
             }
         }
@@ -54,30 +70,42 @@ public final class ComponentsLevelNetworking {
     // Safe to put in the same class as no client-only class is directly referenced
     public static void initClient() {
         if (FabricLoader.getInstance().isModLoaded("fabric-networking-v0")) {
-            ClientSidePacketRegistry.INSTANCE.register(LevelSyncedComponent.PACKET_ID, (context, buffer) -> {
+            ClientSidePacketRegistry.INSTANCE.register(LevelSyncedComponent.PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, false));
+            ClientSidePacketRegistry.INSTANCE.register(COMPACT_PACKET_ID, (context, buffer) -> processSyncPacket(context, buffer, true));
+            ClientSidePacketRegistry.INSTANCE.register(LevelSyncChannel.BUNDLE_PACKET_ID, ComponentsLevelNetworking::processBundle);
+        }
+    }
+
+    private static void processSyncPacket(PacketContext context, PacketByteBuf buffer, boolean compact) {
+        try {
+            ComponentType<?> componentType = ComponentsBaseNetworking.readComponentType(buffer, compact);
+            if (componentType == null) {
+                return;
+            }
+            PendingComponentUpdate<?> update = PendingComponentUpdate.read(componentType, new PacketByteBuf(buffer.retainedSlice()), false);
+            context.getTaskQueue().execute(() -> {
                 try {
-                    Identifier componentTypeId = buffer.readIdentifier();
-                    ComponentType<?> componentType = ComponentRegistry.INSTANCE.get(componentTypeId);
-                    if (componentType == null) {
-                        return;
-                    }
-                    PacketByteBuf copy = new PacketByteBuf(buffer.copy());
-                    context.getTaskQueue().execute(() -> {
-                        try {
-                            assert MinecraftClient.getInstance().world != null;
-                            Component c = componentType.get(MinecraftClient.getInstance().world.getLevelProperties());
-                            if (c instanceof SyncedComponent) {
-                                ((SyncedComponent) c).processPacket(context, copy);
-                            }
-                        } finally {
-                            copy.release();
-                        }
-                    });
-                } catch (Exception e) {
-                    ComponentsInternals.LOGGER.error("Error while reading world save components from network", e);
-                    throw e;
+                    assert MinecraftClient.getInstance().world != null;
+                    update.apply(context, MinecraftClient.getInstance().world.getLevelProperties());
+                } finally {
+                    update.release();
                 }
             });
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading world save components from network", e);
+            throw e;
+        }
+    }
+
+    private static void processBundle(PacketContext context, PacketByteBuf buffer) {
+        try {
+            SyncChannel.processBundle(context, buffer, () -> {
+                assert MinecraftClient.getInstance().world != null;
+                return MinecraftClient.getInstance().world.getLevelProperties();
+            });
+        } catch (Exception e) {
+            ComponentsInternals.LOGGER.error("Error while reading world save components from network", e);
+            throw e;
         }
     }
 }
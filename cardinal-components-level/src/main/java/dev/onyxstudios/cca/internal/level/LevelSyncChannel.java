@@ -0,0 +1,55 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.level;
+
+import dev.onyxstudios.cca.internal.base.SyncChannel;
+import nerdhub.cardinal.components.api.util.sync.LevelSyncedComponent;
+import net.fabricmc.fabric.api.server.PlayerStream;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.function.Consumer;
+
+/**
+ * Bundles level component updates. Bundles have no header, as a server only has a single level.
+ */
+public final class LevelSyncChannel extends SyncChannel<MinecraftServer> {
+    public static final Identifier BUNDLE_PACKET_ID = new Identifier("cardinal-components", "level_sync_bundle");
+    public static final LevelSyncChannel INSTANCE = new LevelSyncChannel();
+
+    private LevelSyncChannel() {
+        super(BUNDLE_PACKET_ID, LevelSyncedComponent.class);
+    }
+
+    @Override
+    protected void writeHeader(MinecraftServer provider, PacketByteBuf buf) {
+        // NO-OP
+    }
+
+    @Override
+    protected void forEachWatcher(MinecraftServer provider, Consumer<ServerPlayerEntity> action) {
+        PlayerStream.all(provider).map(ServerPlayerEntity.class::cast).forEach(action);
+    }
+}
@@ -25,6 +25,7 @@ package dev.onyxstudios.cca.mixin.level.common;
 import com.mojang.datafixers.DataFixer;
 import com.mojang.serialization.Dynamic;
 import com.mojang.serialization.Lifecycle;
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
 import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
 import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
@@ -52,6 +53,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.LinkedHashSet;
 import java.util.UUID;
 
@@ -62,10 +64,16 @@ public abstract class MixinLevelProperties implements ServerWorldProperties, Int
         = new Lazy<>(() -> ComponentsInternals.createFactory(StaticLevelComponentPlugin.INSTANCE.getContainerFactoryClass(), LevelComponentCallback.EVENT));
     @Unique
     private ComponentContainer<?> components;
+    @Unique
+    private ComponentChangeTracker changeTracker;
+    @Unique
+    @Nullable
+    private CompoundTag savedComponents;
 
     @Inject(method = "<init>(Lcom/mojang/datafixers/DataFixer;ILnet/minecraft/nbt/CompoundTag;ZIIIJJIIIZIZZZLnet/minecraft/world/border/WorldBorder$Properties;IILjava/util/UUID;Ljava/util/LinkedHashSet;Lnet/minecraft/world/timer/Timer;Lnet/minecraft/nbt/CompoundTag;Lnet/minecraft/nbt/CompoundTag;Lnet/minecraft/world/level/LevelInfo;Lnet/minecraft/world/gen/GeneratorOptions;Lcom/mojang/serialization/Lifecycle;)V", at = @At("RETURN"))
     private void initComponents(DataFixer dataFixer, int dataVersion, CompoundTag playerData, boolean modded, int spawnX, int spawnY, int spawnZ, long time, long timeOfDay, int version, int clearWeatherTime, int rainTime, boolean raining, int thunderTime, boolean thundering, boolean initialized, boolean difficultyLocked, WorldBorder.Properties worldBorder, int wanderingTraderSpawnDelay, int wanderingTraderSpawnChance, UUID wanderingTraderId, LinkedHashSet<String> serverBrands, Timer<MinecraftServer> timer, CompoundTag compoundTag, CompoundTag compoundTag2, LevelInfo levelInfo, GeneratorOptions generatorOptions, Lifecycle lifecycle, CallbackInfo ci) {
         this.components = componentContainerFactory.get().create(this);
+        this.changeTracker = new ComponentChangeTracker(this.components);
     }
 
     @Inject(method = "method_29029", at = @At("RETURN"))
@@ -75,7 +83,17 @@ public abstract class MixinLevelProperties implements ServerWorldProperties, Int
 
     @Inject(method = "updateProperties", at = @At("RETURN"))
     private void writeComponents(RegistryTracker tracker, CompoundTag data, CompoundTag player, CallbackInfo ci) {
-        this.components.toTag(data);
+        CompoundTag savedComponents = this.savedComponents;
+        // level.dat is always written in full, reuse the last serialized data if nothing changed since
+        if (savedComponents == null || this.changeTracker.hasChanged()) {
+            savedComponents = this.components.toTag(new CompoundTag());
+            this.savedComponents = savedComponents;
+            this.changeTracker.markSaved();
+        }
+        for (String key : savedComponents.getKeys()) {
+            // hand out copies, as the level data may be modified before the next save
+            data.put(key, savedComponents.get(key).copy());
+        }
     }
 
     @Nonnull
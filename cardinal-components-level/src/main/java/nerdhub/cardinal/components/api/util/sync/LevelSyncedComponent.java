@@ -22,18 +22,23 @@
  */
 package nerdhub.cardinal.components.api.util.sync;
 
+import dev.onyxstudios.cca.internal.base.ComponentSyncScheduler;
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import dev.onyxstudios.cca.internal.level.ComponentsLevelNetworking;
+import dev.onyxstudios.cca.internal.level.LevelSyncChannel;
 import io.netty.buffer.Unpooled;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
-import net.fabricmc.fabric.api.server.PlayerStream;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
+import java.util.Collections;
+
 /**
  * Default implementations of {@link SyncedComponent} methods, specialized for level components
  */
@@ -60,17 +65,25 @@ public interface LevelSyncedComponent extends BaseSyncedComponent {
 
     /**
      * Synchronizes this component with every player in {@code server}
+     *
+     * @implNote The default implementation sends this component's data immediately.
+     * If {@link #shouldDeferSync()} returns {@code true}, the data is instead sent at the end of the current
+     * server tick, bundled with the other level components synchronized during that tick.
      */
     default void syncWithAll(MinecraftServer server) {
-        PlayerStream.all(server).map(ServerPlayerEntity.class::cast).forEach(this::syncWith);
+        if (this.shouldDeferSync()) {
+            ComponentSyncScheduler.schedule(LevelSyncChannel.INSTANCE, server, this);
+        } else {
+            LevelSyncChannel.INSTANCE.sync(server, Collections.singleton(this));
+        }
     }
 
     @Override
     default void syncWith(ServerPlayerEntity player) {
         PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
-        buf.writeIdentifier(this.getComponentType().getId());
+        boolean compact = ComponentsBaseNetworking.writeComponentType(player, buf, this.getComponentType());
         this.writeToPacket(buf);
-        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, PACKET_ID, buf);
+        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, compact ? ComponentsLevelNetworking.COMPACT_PACKET_ID : PACKET_ID, buf);
     }
 
     /**
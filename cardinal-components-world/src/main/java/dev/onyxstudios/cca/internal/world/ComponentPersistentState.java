@@ -22,30 +22,116 @@
  */
 package dev.onyxstudios.cca.internal.world;
 
+import dev.onyxstudios.cca.internal.base.ComponentChangeTracker;
+import dev.onyxstudios.cca.internal.base.ComponentsInternals;
+import dev.onyxstudios.cca.internal.base.SnapshotTag;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
+import net.minecraft.SharedConstants;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.util.Util;
 import net.minecraft.world.PersistentState;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+
 public class ComponentPersistentState extends PersistentState {
     private final ComponentContainer<?> components;
+    private final ComponentChangeTracker changeTracker;
+    @Nullable
+    private CompletableFuture<Void> pendingWrite;
+    /**
+     * Set by the worker thread when the last write failed, so that the next save tries again
+     */
+    private volatile boolean writeFailed;
 
     public ComponentPersistentState(String id, ComponentContainer<?> components) {
         super(id);
         this.components = components;
+        this.changeTracker = new ComponentChangeTracker(components);
     }
 
     @Override
     public boolean isDirty() {
-        return true;
+        return super.isDirty() || this.writeFailed || this.changeTracker.hasChanged();
     }
 
     @Override
     public void fromTag(CompoundTag tag) {
         this.components.fromTag(tag);
+        this.changeTracker.markSaved();
     }
 
     @Override
     public CompoundTag toTag(CompoundTag tag) {
-        return this.components.toTag(tag);
+        CompoundTag ret = SnapshotTag.writeComponents(this.components, tag);
+        this.changeTracker.markSaved();
+        return ret;
+    }
+
+    /**
+     * Saves this state to the given file.
+     *
+     * <p> Components are captured on the calling thread, then encoded and written
+     * on a worker thread. Use {@link #flush()} to wait for the write to complete.
+     * If the write fails, this state stays dirty and is written again on the next save.
+     */
+    @Override
+    public void save(File file) {
+        if (this.isDirty()) {
+            // writes to the same file must not overlap
+            this.flush();
+            CompoundTag tag = new CompoundTag();
+            tag.put("data", this.toTag(new CompoundTag()));
+            tag.putInt("DataVersion", SharedConstants.getGameVersion().getWorldVersion());
+            this.writeFailed = false;
+            this.setDirty(false);
+            this.pendingWrite = CompletableFuture.runAsync(() -> writeTag(file, tag), Util.getServerWorkerExecutor())
+                .exceptionally(t -> {
+                    this.writeFailed = true;
+                    ComponentsInternals.LOGGER.error("Could not save world components to {}", file, t);
+                    return null;
+                });
+        }
+    }
+
+    /**
+     * Blocks until the last {@linkplain #save(File) save} of this state has been written to disk.
+     */
+    public void flush() {
+        CompletableFuture<Void> pendingWrite = this.pendingWrite;
+        if (pendingWrite != null) {
+            pendingWrite.join();
+            this.pendingWrite = null;
+        }
+    }
+
+    /**
+     * Writes the tag to a temporary file, then moves it over the target,
+     * so that a failed write never leaves a truncated file behind.
+     */
+    private static void writeTag(File file, CompoundTag tag) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                NbtIo.writeCompressed(tag, out);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -26,6 +26,7 @@ import dev.onyxstudios.cca.internal.world.ComponentPersistentState;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.WorldGenerationProgressListener;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ProgressListener;
 import net.minecraft.util.registry.RegistryKey;
 import net.minecraft.world.PersistentStateManager;
 import net.minecraft.world.World;
@@ -41,6 +42,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.concurrent.Executor;
 
@@ -50,11 +52,21 @@ public abstract class MixinServerWorld extends MixinWorld {
 
     @Unique
     private static final String PERSISTENT_STATE_KEY = "cardinal_world_components";
+    @Unique
+    private ComponentPersistentState componentState;
 
     @Inject(at = @At("RETURN"), method = "<init>")
     private void constructor(MinecraftServer server, Executor workerExecutor, LevelStorage.Session session, ServerWorldProperties properties, RegistryKey<World> worldKey, RegistryKey<DimensionType> dimensionKey, DimensionType dimensionType, WorldGenerationProgressListener worldGenerationProgressListener, ChunkGenerator chunkGenerator, boolean bl, long l, List<Spawner> list, boolean bl2, CallbackInfo ci) {
         PersistentStateManager persistentStateManager = this.getPersistentStateManager();
-        persistentStateManager.getOrCreate(() -> new ComponentPersistentState(PERSISTENT_STATE_KEY, this.components), PERSISTENT_STATE_KEY);
+        this.componentState = persistentStateManager.getOrCreate(() -> new ComponentPersistentState(PERSISTENT_STATE_KEY, this.components), PERSISTENT_STATE_KEY);
+    }
+
+    @Inject(method = "save", at = @At("RETURN"))
+    private void flushComponents(@Nullable ProgressListener progressListener, boolean flush, boolean savingDisabled, CallbackInfo ci) {
+        if (flush) {
+            // components are written asynchronously, make sure they reached the disk
+            this.componentState.flush();
+        }
     }
 
 }
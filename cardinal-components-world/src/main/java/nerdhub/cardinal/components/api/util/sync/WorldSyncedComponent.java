@@ -22,6 +22,10 @@
  */
 package nerdhub.cardinal.components.api.util.sync;
 
+import dev.onyxstudios.cca.internal.base.ComponentSyncScheduler;
+import dev.onyxstudios.cca.internal.base.ComponentsBaseNetworking;
+import dev.onyxstudios.cca.internal.world.ComponentsWorldNetworking;
+import dev.onyxstudios.cca.internal.world.WorldSyncChannel;
 import io.netty.buffer.Unpooled;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.ComponentProvider;
@@ -29,13 +33,14 @@ import nerdhub.cardinal.components.api.component.extension.SyncedComponent;
 import nerdhub.cardinal.components.api.component.extension.TypeAwareComponent;
 import net.fabricmc.fabric.api.network.PacketContext;
 import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
-import net.fabricmc.fabric.api.server.PlayerStream;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 import net.minecraft.world.World;
 
+import java.util.Collections;
+
 /**
  * Default implementations of {@link SyncedComponent} methods, specialized for world components
  */
@@ -55,29 +60,38 @@ public interface WorldSyncedComponent extends BaseSyncedComponent {
 
     /**
      * {@inheritDoc}
-     * @implNote The default implementation should generally be overridden.
-     * This implementation performs a linear-time lookup on the provider to find the component type
-     * this component is associated with.
-     * Implementing classes can nearly always provide a better implementation.
+     * @implNote This implementation uses {@link TypeAwareComponent#lookupComponentType},
+     * which compares this component by identity with those held by the provider's component container.
      */
     @Override
     default ComponentType<?> getComponentType() {
         return TypeAwareComponent.lookupComponentType(ComponentProvider.fromWorld(this.getWorld()), this);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote The default implementation sends this component's data to every player in the world immediately.
+     * If {@link #shouldDeferSync()} returns {@code true}, the data is instead sent at the end of the current
+     * server tick, bundled with the other components of the same world synchronized during that tick.
+     */
     @Override
     default void sync() {
         if (!this.getWorld().isClient) {
-            PlayerStream.world(this.getWorld()).map(ServerPlayerEntity.class::cast).forEach(this::syncWith);
+            if (this.shouldDeferSync()) {
+                ComponentSyncScheduler.schedule(WorldSyncChannel.INSTANCE, this.getWorld(), this);
+            } else {
+                WorldSyncChannel.INSTANCE.sync(this.getWorld(), Collections.singleton(this));
+            }
         }
     }
 
     @Override
     default void syncWith(ServerPlayerEntity player) {
         PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
-        buf.writeIdentifier(this.getComponentType().getId());
+        boolean compact = ComponentsBaseNetworking.writeComponentType(player, buf, this.getComponentType());
         this.writeToPacket(buf);
-        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, PACKET_ID, buf);
+        ServerSidePacketRegistry.INSTANCE.sendToPlayer(player, compact ? ComponentsWorldNetworking.COMPACT_PACKET_ID : PACKET_ID, buf);
     }
 
     /**
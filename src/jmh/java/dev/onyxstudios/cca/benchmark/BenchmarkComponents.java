@@ -0,0 +1,117 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.benchmark;
+
+import dev.onyxstudios.cca.internal.base.DynamicContainerFactory;
+import dev.onyxstudios.cca.internal.base.asm.StaticComponentPluginBase;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import net.minecraft.util.Identifier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared setup for component benchmarks.
+ *
+ * <p> Component types and generated classes are created once per JVM, and reused by every
+ * benchmark that runs in the same fork.
+ */
+public final class BenchmarkComponents {
+    private static final List<ComponentType<BenchmarkComponent>> TYPES = new ArrayList<>();
+    private static final Int2ObjectMap<Class<? extends ComponentContainer<?>>> GENERATED_CONTAINERS = new Int2ObjectOpenHashMap<>();
+    private static final Int2ObjectMap<Class<? extends DynamicContainerFactory<?, ?>>> GENERATED_FACTORIES = new Int2ObjectOpenHashMap<>();
+
+    private BenchmarkComponents() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return the first {@code count} benchmark component types, registering them as needed
+     */
+    public static synchronized List<ComponentType<BenchmarkComponent>> getTypes(int count) {
+        for (int i = TYPES.size(); i < count; i++) {
+            TYPES.add(ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("benchmark", "component_" + i), BenchmarkComponent.class));
+        }
+        return TYPES.subList(0, count);
+    }
+
+    /**
+     * @return a generated container class holding {@code count} static benchmark components
+     */
+    public static synchronized Class<? extends ComponentContainer<?>> getGeneratedContainerClass(int count) {
+        Class<? extends ComponentContainer<?>> ret = GENERATED_CONTAINERS.get(count);
+        if (ret == null) {
+            Map<Identifier, BenchmarkComponent.Factory> factories = new LinkedHashMap<>();
+            for (ComponentType<BenchmarkComponent> type : getTypes(count)) {
+                int value = type.getRawId();
+                factories.put(type.getId(), provider -> new BenchmarkComponent(value));
+            }
+            try {
+                ret = StaticComponentPluginBase.spinComponentContainer(BenchmarkComponent.Factory.class, factories, "benchmark_" + count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            GENERATED_CONTAINERS.put(count, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return a new generated container holding {@code count} static benchmark components
+     */
+    public static ComponentContainer<?> createGeneratedContainer(int count, Object provider) {
+        try {
+            return getGeneratedContainerClass(count).getConstructor(int.class, boolean.class, Object.class).newInstance(0, false, provider);
+        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to instantiate generated container", e);
+        }
+    }
+
+    /**
+     * @return a generated factory creating containers that hold {@code count} static benchmark components
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized DynamicContainerFactory<Object, ?> getGeneratedFactory(int count) {
+        Class<? extends DynamicContainerFactory<?, ?>> factoryClass = GENERATED_FACTORIES.get(count);
+        try {
+            if (factoryClass == null) {
+                factoryClass = StaticComponentPluginBase.spinContainerFactory("benchmark_" + count, DynamicContainerFactory.class, getGeneratedContainerClass(count), null, 0, Object.class);
+                GENERATED_FACTORIES.put(count, factoryClass);
+            }
+            return (DynamicContainerFactory<Object, ?>) factoryClass.getConstructor().newInstance();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to instantiate generated container factory", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.benchmark;
+
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
+import nerdhub.cardinal.components.api.util.container.IndexedComponentContainer;
+import net.minecraft.nbt.CompoundTag;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the common operations of every component container implementation.
+ *
+ * <p> Generated containers hold all their components statically, while other implementations
+ * get them added dynamically.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ComponentContainerBenchmark {
+    @Param({"fast_hashed", "fast_indexed", "indexed", "generated"})
+    public String implementation;
+
+    @Param({"1", "10", "100", "1000"})
+    public int componentCount;
+
+    private ComponentContainer<Component> container;
+    private ComponentType<?>[] lookups;
+    private ComponentType<?> missing;
+    private CompoundTag serialized;
+    private int index;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setUp() {
+        // one more type, registered but never added to the container
+        List<ComponentType<BenchmarkComponent>> types = BenchmarkComponents.getTypes(this.componentCount + 1);
+        this.missing = types.get(this.componentCount);
+        types = types.subList(0, this.componentCount);
+        switch (this.implementation) {
+            case "fast_hashed":
+                this.container = new FastComponentContainer<>(this.componentCount, false);
+                break;
+            case "fast_indexed":
+                this.container = new FastComponentContainer<>(this.componentCount, true);
+                break;
+            case "indexed":
+                this.container = new IndexedComponentContainer<>();
+                break;
+            case "generated":
+                this.container = (ComponentContainer<Component>) BenchmarkComponents.createGeneratedContainer(this.componentCount, new Object());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown container implementation " + this.implementation);
+        }
+        if (!this.implementation.equals("generated")) {
+            for (ComponentType<BenchmarkComponent> type : types) {
+                this.container.put(type, new BenchmarkComponent(type.getRawId()));
+            }
+        }
+        this.lookups = types.toArray(new ComponentType<?>[0]);
+        this.serialized = this.container.toTag(new CompoundTag());
+    }
+
+    private ComponentType<?> nextType() {
+        ComponentType<?>[] lookups = this.lookups;
+        int i = this.index;
+        this.index = i + 1 == lookups.length ? 0 : i + 1;
+        return lookups[i];
+    }
+
+    @Benchmark
+    public Component get() {
+        return this.container.get(this.nextType());
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return this.container.containsKey(this.nextType());
+    }
+
+    @Benchmark
+    public boolean containsKeyMissing() {
+        return this.container.containsKey(this.missing);
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        this.container.forEach((type, component) -> blackhole.consume(component));
+    }
+
+    @Benchmark
+    public void cursor(Blackhole blackhole) {
+        if (this.container instanceof FastComponentContainer) {
+            FastComponentContainer.Cursor<Component> cursor = ((FastComponentContainer<Component>) this.container).cursor();
+            while (cursor.advance()) {
+                blackhole.consume(cursor.getComponent());
+            }
+        } else {
+            for (Component component : this.container.values()) {
+                blackhole.consume(component);
+            }
+        }
+    }
+
+    @Benchmark
+    public CompoundTag toTag() {
+        return this.container.toTag(new CompoundTag());
+    }
+
+    @Benchmark
+    public ComponentContainer<Component> fromTag() {
+        this.container.fromTag(this.serialized);
+        return this.container;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.benchmark;
+
+import dev.onyxstudios.cca.internal.base.InternalComponentProvider;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures component lookups through {@code ComponentType#getNullable}, on a provider
+ * backed by a generated component container.
+ *
+ * <p> Specialized component types are only generated for component ids declared by mods,
+ * which requires a full Fabric launch. This benchmark uses runtime component types,
+ * and compares them with a direct call to the provider.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ComponentTypeBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int componentCount;
+
+    private ComponentType<BenchmarkComponent> type;
+    private Provider provider;
+
+    @Setup
+    public void setUp() {
+        this.type = BenchmarkComponents.getTypes(this.componentCount).get(this.componentCount / 2);
+        this.provider = new Provider();
+        this.provider.container = BenchmarkComponents.createGeneratedContainer(this.componentCount, this.provider);
+    }
+
+    @Benchmark
+    public Component getNullable() {
+        return this.type.getNullable(this.provider);
+    }
+
+    @Benchmark
+    public Component getComponent() {
+        return this.provider.getComponent(this.type);
+    }
+
+    public static final class Provider implements InternalComponentProvider {
+        ComponentContainer<?> container;
+
+        @Override
+        public Object getStaticComponentContainer() {
+            return this.container;
+        }
+    }
+}
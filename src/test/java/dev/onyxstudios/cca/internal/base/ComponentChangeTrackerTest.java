@@ -0,0 +1,126 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.extension.ChangeTrackingComponent;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ComponentChangeTrackerTest {
+    private ComponentType<TrackedComponent> type;
+
+    @BeforeEach
+    void setUp() {
+        this.type = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("test:tracked"), TrackedComponent.class);
+    }
+
+    @Test
+    void reusesUnchangedComponentData() {
+        FastComponentContainer<Component> container = new FastComponentContainer<>();
+        TrackedComponent component = new TrackedComponent(3);
+        container.put(this.type, component);
+        ComponentChangeTracker tracker = new ComponentChangeTracker(container);
+        Assertions.assertEquals(3, this.getSavedValue(tracker.toTag(new CompoundTag())));
+        Assertions.assertEquals(1, component.writes);
+        Assertions.assertEquals(3, this.getSavedValue(tracker.toTag(new CompoundTag())));
+        Assertions.assertEquals(1, component.writes);
+        component.setValue(5);
+        Assertions.assertEquals(5, this.getSavedValue(tracker.toTag(new CompoundTag())));
+        Assertions.assertEquals(2, component.writes);
+    }
+
+    @Test
+    void modifyingSavedDataDoesNotAffectLaterSaves() {
+        FastComponentContainer<Component> container = new FastComponentContainer<>();
+        container.put(this.type, new TrackedComponent(3));
+        ComponentChangeTracker tracker = new ComponentChangeTracker(container);
+
+        // freshly serialized data
+        CompoundTag first = tracker.toTag(new CompoundTag());
+        this.getSavedComponent(first).putInt("value", 42);
+        this.getSavedComponent(first).putString("garbage", "garbage");
+        CompoundTag second = tracker.toTag(new CompoundTag());
+        Assertions.assertEquals(3, this.getSavedValue(second));
+        Assertions.assertFalse(this.getSavedComponent(second).contains("garbage"));
+
+        // reused data
+        this.getSavedComponent(second).putInt("value", 42);
+        CompoundTag third = tracker.toTag(new CompoundTag());
+        Assertions.assertEquals(3, this.getSavedValue(third));
+        Assertions.assertNotSame(this.getSavedComponent(second), this.getSavedComponent(third));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
+    }
+
+    private CompoundTag getSavedComponent(CompoundTag tag) {
+        return tag.getCompound(AbstractComponentContainer.NBT_KEY).getCompound(this.type.getSerializedId());
+    }
+
+    private int getSavedValue(CompoundTag tag) {
+        return this.getSavedComponent(tag).getInt("value");
+    }
+
+    static class TrackedComponent implements ChangeTrackingComponent {
+        private int value;
+        private int changeCount;
+        int writes;
+
+        TrackedComponent(int value) {
+            this.value = value;
+        }
+
+        void setValue(int value) {
+            this.value = value;
+            this.changeCount++;
+        }
+
+        @Override
+        public int getChangeCount() {
+            return this.changeCount;
+        }
+
+        @Override
+        public void fromTag(CompoundTag tag) {
+            this.setValue(tag.getInt("value"));
+        }
+
+        @Override
+        public CompoundTag toTag(CompoundTag tag) {
+            this.writes++;
+            tag.putInt("value", this.value);
+            return tag;
+        }
+    }
+}
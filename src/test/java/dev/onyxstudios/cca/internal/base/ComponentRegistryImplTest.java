@@ -31,6 +31,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 class ComponentRegistryImplTest {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -54,6 +64,71 @@ class ComponentRegistryImplTest {
         Assertions.assertEquals(1, registry.stream().count());
     }
 
+    @Test
+    void keepsRawIdsStable() {
+        ComponentRegistryImpl registry = (ComponentRegistryImpl) ComponentRegistry.INSTANCE;
+        Identifier id1 = new Identifier("testmod:test");
+        Identifier id2 = new Identifier("testmod:test2");
+        int reservedRawId = registry.assignRawId(id2);
+        ComponentType<?> type1 = registry.registerIfAbsent(id1, TestComponentItf.class);
+        ComponentType<?> type2 = registry.registerIfAbsent(id2, TestComponentItf2.class);
+        Assertions.assertEquals(reservedRawId, type2.getRawId(), "Registration must use the raw id assigned beforehand");
+        Assertions.assertEquals(type1.getRawId(), registry.assignRawId(id1));
+        List<Identifier> mapping = registry.getRawIdMapping();
+        for (int i = 0; i < 20; i++) {
+            registry.registerIfAbsent(new Identifier("testmod", "extra_" + i), TestComponentItf.class);
+        }
+        Assertions.assertEquals(2, mapping.size(), "Raw id mappings must be immutable snapshots");
+        Assertions.assertEquals(type1.getRawId(), registry.assignRawId(id1));
+        Assertions.assertEquals(type2.getRawId(), registry.assignRawId(id2));
+        Assertions.assertSame(type1, ComponentRegistryImpl.byRawId(type1.getRawId()));
+        Assertions.assertSame(type2, ComponentRegistryImpl.byRawId(type2.getRawId()));
+        List<Identifier> newMapping = registry.getRawIdMapping();
+        Assertions.assertEquals(22, newMapping.size());
+        Assertions.assertEquals(id1, newMapping.get(type1.getRawId()));
+        Assertions.assertEquals(id2, newMapping.get(type2.getRawId()));
+    }
+
+    @Test
+    void supportsLookupsDuringConcurrentRegistration() throws Exception {
+        ComponentRegistryImpl registry = (ComponentRegistryImpl) ComponentRegistry.INSTANCE;
+        Identifier firstId = new Identifier("testmod:test");
+        ComponentType<?> first = registry.registerIfAbsent(firstId, TestComponentItf.class);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (!done.get()) {
+                    Assertions.assertSame(first, registry.get(firstId));
+                    Assertions.assertSame(first, ComponentRegistryImpl.byRawId(first.getRawId()));
+                    List<Identifier> mapping = registry.getRawIdMapping();
+                    for (int rawId = 0; rawId < mapping.size(); rawId++) {
+                        Assertions.assertEquals(rawId, registry.assignRawId(mapping.get(rawId)));
+                    }
+                }
+            });
+            List<Future<ComponentType<?>>> registrations = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Identifier id = new Identifier("testmod", "concurrent_" + i);
+                registrations.add(executor.submit(() -> registry.registerIfAbsent(id, TestComponentItf.class)));
+            }
+            Set<Integer> rawIds = new HashSet<>();
+            for (Future<ComponentType<?>> registration : registrations) {
+                ComponentType<?> type = registration.get(10, TimeUnit.SECONDS);
+                Assertions.assertTrue(rawIds.add(type.getRawId()), "Duplicate raw id " + type.getRawId());
+                Assertions.assertSame(type, registry.get(type.getId()));
+                Assertions.assertSame(type, ComponentRegistryImpl.byRawId(type.getRawId()));
+            }
+            done.set(true);
+            reader.get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(201, registry.stream().count());
+            Assertions.assertEquals(201, registry.getRawIdMapping().size());
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+    }
+
     @AfterEach
     void tearDown() {
         ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
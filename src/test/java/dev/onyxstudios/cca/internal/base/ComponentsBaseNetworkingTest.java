@@ -0,0 +1,72 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import io.netty.buffer.Unpooled;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ComponentsBaseNetworkingTest {
+
+    @Test
+    void readsCompactComponentTypes() {
+        ComponentType<?> type = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:test"), ComponentRegistryImplTest.TestComponentItf.class);
+        ComponentType<?>[] types = {type};
+        Identifier[] ids = {type.getId()};
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        ComponentsBaseNetworking.writeComponentType(buf, type, 1);
+        ComponentsBaseNetworking.writeComponentType(buf, type, 0);
+        Assertions.assertSame(type, ComponentsBaseNetworking.readComponentType(buf, true, types, ids));
+        Assertions.assertSame(type, ComponentsBaseNetworking.readComponentType(buf, true, types, ids));
+        Assertions.assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    void ignoresRawIdsOutsideOfTheMap() {
+        ComponentType<?> type = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:test"), ComponentRegistryImplTest.TestComponentItf.class);
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeVarInt(type.getRawId() + 1);
+        buf.writeVarInt(5);
+        Assertions.assertNull(ComponentsBaseNetworking.readComponentType(buf, true, new ComponentType<?>[0], new Identifier[0]));
+        Assertions.assertNull(ComponentsBaseNetworking.readComponentType(buf, true, new ComponentType<?>[]{type}, new Identifier[]{type.getId()}));
+    }
+
+    @Test
+    void forgetsIdMapWhenCleared() {
+        ComponentType<?> type = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:test"), ComponentRegistryImplTest.TestComponentItf.class);
+        ComponentsBaseNetworking.clearClientIdMap();
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        ComponentsBaseNetworking.writeComponentType(buf, type, 1);
+        Assertions.assertNull(ComponentsBaseNetworking.readComponentType(buf, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.base;
+
+import io.netty.buffer.Unpooled;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.ComponentProvider;
+import nerdhub.cardinal.components.api.util.sync.BaseSyncedComponent;
+import nerdhub.cardinal.components.api.util.sync.DeltaSyncedComponent;
+import net.fabricmc.fabric.api.network.PacketContext;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+class SyncChannelTest {
+    private static final int HEADER = 42;
+
+    private final TestSyncChannel channel = new TestSyncChannel();
+    private ComponentType<BytesComponent> type1;
+    private ComponentType<BytesComponent> type2;
+    private ComponentType<BytesComponent> type3;
+
+    @BeforeEach
+    void setUp() {
+        this.type1 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:bytes1"), BytesComponent.class);
+        this.type2 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:bytes2"), BytesComponent.class);
+        this.type3 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:bytes3"), BytesComponent.class);
+    }
+
+    @Test
+    void roundTripsBundles() {
+        BytesComponent c1 = new BytesComponent(this.type1, 1, 2, 3);
+        BytesComponent c2 = new BytesComponent(this.type2);
+        List<PacketByteBuf> bundles = this.channel.encodeBundles(new Object(), Arrays.asList(c1, c2), false, -1);
+        Assertions.assertEquals(1, bundles.size());
+
+        TestProvider receiver = new TestProvider(this.type1, this.type2);
+        this.readBundle(bundles.get(0), receiver);
+        Assertions.assertArrayEquals(c1.data, receiver.get(this.type1).data);
+        Assertions.assertArrayEquals(c2.data, receiver.get(this.type2).data);
+    }
+
+    @Test
+    void splitsOversizeBundles() {
+        List<BytesComponent> components = new ArrayList<>();
+        for (ComponentType<BytesComponent> type : Arrays.asList(this.type1, this.type2, this.type3)) {
+            byte[] data = new byte[SyncChannel.MAX_BUNDLE_SIZE * 2 / 5];
+            Arrays.fill(data, (byte) type.getRawId());
+            components.add(new BytesComponent(type, data));
+        }
+        List<PacketByteBuf> bundles = this.channel.encodeBundles(new Object(), components, false, -1);
+        Assertions.assertEquals(2, bundles.size());
+
+        TestProvider receiver = new TestProvider(this.type1, this.type2, this.type3);
+        for (PacketByteBuf bundle : bundles) {
+            Assertions.assertTrue(bundle.writerIndex() <= SyncChannel.MAX_BUNDLE_SIZE, "Bundle exceeds the maximum size");
+            this.readBundle(bundle, receiver);
+        }
+        for (BytesComponent component : components) {
+            Assertions.assertArrayEquals(component.data, receiver.get(component.type).data);
+        }
+    }
+
+    @Test
+    void sendsDeltasWhenAllowed() {
+        BytesComponent component = new BytesComponent(this.type1, 1, 2, 3);
+        component.delta = 5;
+        TestProvider receiver = new TestProvider(this.type1);
+
+        this.readBundle(this.channel.encodeBundles(new Object(), Collections.singleton(component), true, -1).get(0), receiver);
+        Assertions.assertEquals(5, receiver.get(this.type1).delta);
+        Assertions.assertArrayEquals(new byte[0], receiver.get(this.type1).data, "Delta entries must not be read as full updates");
+
+        // initial synchronization always sends the full state
+        this.readBundle(this.channel.encodeBundles(new Object(), Collections.singleton(component), false, -1).get(0), receiver);
+        Assertions.assertArrayEquals(component.data, receiver.get(this.type1).data);
+
+        component.delta = -1;
+        receiver.get(this.type1).data = new byte[0];
+        this.readBundle(this.channel.encodeBundles(new Object(), Collections.singleton(component), true, -1).get(0), receiver);
+        Assertions.assertArrayEquals(component.data, receiver.get(this.type1).data, "Components without a delta must send their full state");
+    }
+
+    @Test
+    void releasesRetainedSlices() {
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeIdentifier(new Identifier("testmod:unknown"));
+        buf.writeBoolean(false);
+        buf.writeInt(3);
+        buf.writeBytes(new byte[3]);
+        this.channel.writeEntries(buf, Arrays.asList(new BytesComponent(this.type1, 1), new BytesComponent(this.type2, 2)), -1);
+
+        List<PendingComponentUpdate<?>> updates = SyncChannel.readEntries(buf, false);
+        Assertions.assertEquals(2, updates.size(), "Unknown components must be skipped");
+        Assertions.assertEquals(3, buf.refCnt(), "Each pending update must retain the buffer");
+        TestProvider receiver = new TestProvider(this.type1, this.type2);
+        for (PendingComponentUpdate<?> update : updates) {
+            update.apply(null, receiver);
+            update.release();
+            update.release();   // releasing twice must be harmless
+        }
+        Assertions.assertEquals(1, buf.refCnt());
+        Assertions.assertArrayEquals(new byte[]{1}, receiver.get(this.type1).data);
+        Assertions.assertArrayEquals(new byte[]{2}, receiver.get(this.type2).data);
+        Assertions.assertTrue(buf.release());
+    }
+
+    @Test
+    void decodedUpdatesDoNotRetainBuffers() {
+        ComponentsBaseNetworking.registerDecoder(this.type3, payload -> {
+            byte[] data = new byte[payload.readableBytes()];
+            payload.readBytes(data);
+            return component -> component.data = data;
+        });
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        this.channel.writeEntries(buf, Collections.singleton(new BytesComponent(this.type3, 7, 8)), -1);
+
+        List<PendingComponentUpdate<?>> updates = SyncChannel.readEntries(buf, false);
+        Assertions.assertEquals(1, buf.refCnt(), "Decoded updates must release their slice right away");
+        TestProvider receiver = new TestProvider(this.type3);
+        updates.get(0).apply(null, receiver);
+        updates.get(0).release();
+        Assertions.assertArrayEquals(new byte[]{7, 8}, receiver.get(this.type3).data);
+        Assertions.assertTrue(buf.release());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
+    }
+
+    private void readBundle(PacketByteBuf bundle, TestProvider receiver) {
+        PacketByteBuf buf = new PacketByteBuf(bundle.duplicate());
+        Assertions.assertEquals(HEADER, buf.readVarInt());
+        Assertions.assertFalse(buf.readBoolean(), "Bundles for unmapped clients must not use the compact encoding");
+        List<PendingComponentUpdate<?>> updates = SyncChannel.readEntries(buf, false);
+        Assertions.assertEquals(1 + updates.size(), bundle.refCnt());
+        for (PendingComponentUpdate<?> update : updates) {
+            update.apply(null, receiver);
+            update.release();
+        }
+        Assertions.assertEquals(1, bundle.refCnt());
+        Assertions.assertFalse(buf.isReadable());
+    }
+
+    interface TestSyncedComponent extends BaseSyncedComponent {
+        @Override
+        default void sync() {
+            // NO-OP
+        }
+
+        @Override
+        default void syncWith(ServerPlayerEntity player) {
+            // NO-OP
+        }
+
+        @Override
+        default void processPacket(PacketContext ctx, PacketByteBuf buf) {
+            this.readFromPacket(buf);
+        }
+    }
+
+    static final class TestSyncChannel extends SyncChannel<Object> {
+        TestSyncChannel() {
+            super(new Identifier("testmod:bundle"), TestSyncedComponent.class);
+        }
+
+        @Override
+        protected void writeHeader(Object provider, PacketByteBuf buf) {
+            buf.writeVarInt(HEADER);
+        }
+
+        @Override
+        protected void forEachWatcher(Object provider, Consumer<ServerPlayerEntity> action) {
+            // NO-OP
+        }
+    }
+
+    static final class BytesComponent implements TestSyncedComponent, DeltaSyncedComponent {
+        final ComponentType<BytesComponent> type;
+        byte[] data;
+        int delta = -1;
+
+        BytesComponent(ComponentType<BytesComponent> type, int... data) {
+            this.type = type;
+            this.data = new byte[data.length];
+            for (int i = 0; i < data.length; i++) {
+                this.data[i] = (byte) data[i];
+            }
+        }
+
+        BytesComponent(ComponentType<BytesComponent> type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        @Override
+        public ComponentType<?> getComponentType() {
+            return this.type;
+        }
+
+        @Override
+        public void writeToPacket(PacketByteBuf buf) {
+            buf.writeBytes(this.data);
+        }
+
+        @Override
+        public void readFromPacket(PacketByteBuf buf) {
+            this.data = new byte[buf.readableBytes()];
+            buf.readBytes(this.data);
+        }
+
+        @Override
+        public void writeDeltaToPacket(PacketByteBuf buf) {
+            buf.writeVarInt(this.delta);
+        }
+
+        @Override
+        public void readDeltaFromPacket(PacketByteBuf buf) {
+            this.delta = buf.readVarInt();
+        }
+
+        @Override
+        public void clearDelta() {
+            this.delta = -1;
+        }
+
+        @Override
+        public boolean canSendDelta() {
+            return this.delta >= 0;
+        }
+
+        @Override
+        public void fromTag(CompoundTag tag) {
+            // NO-OP
+        }
+
+        @Override
+        public CompoundTag toTag(CompoundTag tag) {
+            return tag;
+        }
+    }
+
+    static final class TestProvider implements ComponentProvider {
+        private final Map<ComponentType<?>, Component> components = new HashMap<>();
+
+        @SafeVarargs
+        TestProvider(ComponentType<BytesComponent>... types) {
+            for (ComponentType<BytesComponent> type : types) {
+                this.components.put(type, new BytesComponent(type));
+            }
+        }
+
+        BytesComponent get(ComponentType<BytesComponent> type) {
+            return type.getNullable(this);
+        }
+
+        @Override
+        public boolean hasComponent(ComponentType<?> type) {
+            return this.components.containsKey(type);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <C extends Component> C getComponent(ComponentType<C> type) {
+            return (C) this.components.get(type);
+        }
+
+        @Override
+        public Set<ComponentType<?>> getComponentTypes() {
+            return Collections.unmodifiableSet(this.components.keySet());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.item;
+
+import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
+import dev.onyxstudios.cca.internal.item.LazyTestContainer.ValueComponent;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.event.ItemComponentCallback;
+import nerdhub.cardinal.components.api.event.ItemComponentCallbackV2;
+import net.fabricmc.fabric.api.event.Event;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+
+class CardinalItemInternalsTest {
+
+    @AfterEach
+    void tearDown() {
+        ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
+    }
+
+    @Test
+    void comparesComponentsCreatedOnOneSide() {
+        ComponentType<ValueComponent> type1 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:value1"), ValueComponent.class);
+        ComponentType<ValueComponent> type2 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:value2"), ValueComponent.class);
+        LazyTestContainer first = LazyTestContainer.create(type1, type2);
+        LazyTestContainer second = LazyTestContainer.create(type1, type2);
+        Assertions.assertTrue(CardinalItemInternals.areComponentsEqual(first, second));
+        Assertions.assertFalse(first.isCreated(type1) || second.isCreated(type1), "Comparing components must not create them");
+
+        // a modified component that the other container never created
+        Objects.requireNonNull(second.get(type1)).setValue(5);
+        Assertions.assertFalse(first.isCreated(type1));
+        Assertions.assertFalse(CardinalItemInternals.areComponentsEqual(first, second));
+        Assertions.assertFalse(CardinalItemInternals.areComponentsEqual(second, first));
+
+        // a component created but left in its initial state on one side only
+        Objects.requireNonNull(second.get(type1)).setValue(0);
+        Objects.requireNonNull(first.get(type2));
+        Assertions.assertTrue(CardinalItemInternals.areComponentsEqual(first, second));
+        Assertions.assertTrue(CardinalItemInternals.areComponentsEqual(second, first));
+    }
+
+    // hasListeners relies on array backed events using their single listener as invoker,
+    // the following tests fail if that stops being the case
+
+    @Test
+    void newEventsHaveNoListeners() {
+        Event<ItemComponentCallbackV2> event = CardinalItemInternals.createItemComponentsEventV2();
+        Assertions.assertFalse(CardinalItemInternals.hasListeners(event));
+        CardinalItemInternals.createItemComponentsEvent(event);
+        Assertions.assertFalse(CardinalItemInternals.hasListeners(event), "The legacy event proxy is not a listener");
+    }
+
+    @Test
+    void detectsItemListeners() {
+        Event<ItemComponentCallbackV2> event = CardinalItemInternals.createItemComponentsEventV2();
+        CardinalItemInternals.createItemComponentsEvent(event);
+        event.register((item, stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasListeners(event));
+        event.register((item, stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasListeners(event));
+    }
+
+    @Test
+    void detectsLegacyItemListeners() {
+        Event<ItemComponentCallbackV2> event = CardinalItemInternals.createItemComponentsEventV2();
+        Event<ItemComponentCallback> legacyEvent = CardinalItemInternals.createItemComponentsEvent(event);
+        legacyEvent.register((stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasListeners(event));
+        legacyEvent.register((stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasListeners(event));
+    }
+
+    @Test
+    void detectsWildcardListeners() {
+        Event<ItemComponentCallbackV2> event = CardinalItemInternals.createItemComponentsEventV2();
+        CardinalItemInternals.createItemComponentsEvent(event);
+        Assertions.assertFalse(CardinalItemInternals.hasDynamicComponents(event));
+        // the wildcard events cannot be reset, every wildcard check must happen in this test
+        CardinalItemInternals.WILDCARD_ITEM_EVENT.register((stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasDynamicComponents(event));
+        CardinalItemInternals.WILDCARD_ITEM_EVENT_V2.register((item, stack, components) -> {});
+        Assertions.assertTrue(CardinalItemInternals.hasDynamicComponents(event));
+    }
+}
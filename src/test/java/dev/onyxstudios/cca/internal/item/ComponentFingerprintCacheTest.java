@@ -0,0 +1,95 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.item;
+
+import dev.onyxstudios.cca.internal.base.ComponentRegistryImpl;
+import dev.onyxstudios.cca.internal.item.LazyTestContainer.ValueComponent;
+import nerdhub.cardinal.components.api.ComponentRegistry;
+import nerdhub.cardinal.components.api.ComponentType;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+
+class ComponentFingerprintCacheTest {
+    private ComponentType<ValueComponent> type1;
+    private ComponentType<ValueComponent> type2;
+
+    @BeforeEach
+    void setUp() {
+        this.type1 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:value1"), ValueComponent.class);
+        this.type2 = ComponentRegistry.INSTANCE.registerIfAbsent(new Identifier("testmod:value2"), ValueComponent.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ComponentRegistryImpl) ComponentRegistry.INSTANCE).clear();
+    }
+
+    @Test
+    void onlyComparesFingerprintsOfSameCreatedComponents() {
+        LazyTestContainer first = LazyTestContainer.create(this.type1, this.type2);
+        LazyTestContainer second = LazyTestContainer.create(this.type1, this.type2);
+        ComponentFingerprintCache firstCache = new ComponentFingerprintCache(first);
+        ComponentFingerprintCache secondCache = new ComponentFingerprintCache(second);
+
+        // a component left in its initial state does not make the stacks different
+        Objects.requireNonNull(second.get(this.type1));
+        Assertions.assertTrue(firstCache.hasFingerprint());
+        Assertions.assertTrue(secondCache.hasFingerprint());
+        Assertions.assertFalse(firstCache.isComparableWith(secondCache));
+
+        Objects.requireNonNull(first.get(this.type1));
+        Assertions.assertTrue(firstCache.hasFingerprint());
+        Assertions.assertTrue(firstCache.isComparableWith(secondCache));
+        Assertions.assertEquals(firstCache.getFingerprint(), secondCache.getFingerprint());
+
+        Objects.requireNonNull(second.get(this.type1)).setValue(4);
+        Assertions.assertTrue(secondCache.hasFingerprint());
+        Assertions.assertTrue(firstCache.isComparableWith(secondCache));
+        Assertions.assertNotEquals(firstCache.getFingerprint(), secondCache.getFingerprint());
+    }
+
+    @Test
+    void detectsComponentsCreatedAfterFingerprinting() {
+        LazyTestContainer first = LazyTestContainer.create(this.type1, this.type2);
+        LazyTestContainer second = LazyTestContainer.create(this.type1, this.type2);
+        Objects.requireNonNull(first.get(this.type1));
+        Objects.requireNonNull(second.get(this.type1));
+        Objects.requireNonNull(second.get(this.type2));
+        ComponentFingerprintCache firstCache = new ComponentFingerprintCache(first);
+        ComponentFingerprintCache secondCache = new ComponentFingerprintCache(second);
+        Assertions.assertTrue(firstCache.hasFingerprint());
+        Assertions.assertTrue(secondCache.hasFingerprint());
+        Assertions.assertFalse(firstCache.isComparableWith(secondCache));
+
+        // the new component has the same change count as the unused slot of the previous computation
+        Objects.requireNonNull(first.get(this.type2));
+        Assertions.assertTrue(firstCache.hasFingerprint());
+        Assertions.assertTrue(firstCache.isComparableWith(secondCache));
+        Assertions.assertEquals(firstCache.getFingerprint(), secondCache.getFingerprint());
+    }
+}
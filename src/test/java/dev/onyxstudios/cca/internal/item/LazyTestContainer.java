@@ -0,0 +1,140 @@
+/*
+ * Cardinal-Components-API
+ * Copyright (C) 2019-2020 OnyxStudios
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package dev.onyxstudios.cca.internal.item;
+
+import nerdhub.cardinal.components.api.ComponentType;
+import nerdhub.cardinal.components.api.component.Component;
+import nerdhub.cardinal.components.api.component.extension.ChangeTrackingComponent;
+import nerdhub.cardinal.components.api.component.extension.FingerprintedComponent;
+import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
+import net.minecraft.nbt.CompoundTag;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+
+/**
+ * Mimics a generated container with lazily initialized static components.
+ */
+final class LazyTestContainer extends FastComponentContainer<Component> {
+    private final ComponentType<?>[] types;
+    private final ValueComponent[] components;
+
+    private LazyTestContainer(ComponentType<?>[] types, BitSet rawIds) {
+        super(0, false, rawIds, types);
+        this.types = types;
+        this.components = new ValueComponent[types.length];
+    }
+
+    static LazyTestContainer create(ComponentType<?>... types) {
+        ComponentType<?>[] sorted = types.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(ComponentType::getRawId));
+        BitSet rawIds = new BitSet();
+        for (ComponentType<?> type : sorted) {
+            rawIds.set(type.getRawId());
+        }
+        return new LazyTestContainer(sorted, rawIds);
+    }
+
+    boolean isCreated(ComponentType<?> type) {
+        return this.getIfCreated(type) != null;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T get(ComponentType<T> key) {
+        for (int i = 0; i < this.types.length; i++) {
+            if (this.types[i] == key) {
+                if (this.components[i] == null) {
+                    this.components[i] = new ValueComponent();
+                }
+                return (T) this.components[i];
+            }
+        }
+        return super.get(key);
+    }
+
+    @Nullable
+    @Override
+    public Component getIfCreated(ComponentType<?> key) {
+        for (int i = 0; i < this.types.length; i++) {
+            if (this.types[i] == key) {
+                return this.components[i];
+            }
+        }
+        return super.getIfCreated(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ComponentType<?>, ? super Component> action) {
+        for (int i = 0; i < this.types.length; i++) {
+            if (this.components[i] != null) {
+                action.accept(this.types[i], this.components[i]);
+            }
+        }
+        super.forEach(action);
+    }
+
+    static final class ValueComponent implements FingerprintedComponent, ChangeTrackingComponent {
+        private int value;
+        private int changeCount;
+
+        int getValue() {
+            return this.value;
+        }
+
+        void setValue(int value) {
+            this.value = value;
+            this.changeCount++;
+        }
+
+        @Override
+        public long getFingerprint() {
+            return this.value;
+        }
+
+        @Override
+        public int getChangeCount() {
+            return this.changeCount;
+        }
+
+        @Override
+        public boolean isComponentEqual(Component other) {
+            return other instanceof ValueComponent && ((ValueComponent) other).value == this.value;
+        }
+
+        @Override
+        public void fromTag(CompoundTag tag) {
+            this.setValue(tag.getInt("value"));
+        }
+
+        @Override
+        public CompoundTag toTag(CompoundTag tag) {
+            tag.putInt("value", this.value);
+            return tag;
+        }
+    }
+}
@@ -25,17 +25,22 @@ package nerdhub.cardinal.components.api.util.impl;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import dev.onyxstudios.cca.internal.base.ComponentsInternals;
 import nerdhub.cardinal.components.TestComponent;
 import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.ComponentType;
 import nerdhub.cardinal.components.api.component.Component;
 import nerdhub.cardinal.components.api.component.ComponentContainer;
+import nerdhub.cardinal.components.api.util.container.AbstractComponentContainer;
 import nerdhub.cardinal.components.api.util.container.FastComponentContainer;
 import nerdhub.cardinal.components.api.util.container.IndexedComponentContainer;
+import net.fabricmc.fabric.api.util.NbtType;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
 import net.minecraft.util.Identifier;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -103,6 +108,78 @@ class ComponentContainerTest {
         Assertions.assertEquals(cc, cc1);
     }
 
+    @ContainerTest
+    void readsLegacyFormat(ComponentContainer<Component> cc, ComponentContainer<Component> cc1) {
+        ListTag componentList = new ListTag();
+        for (int i : new int[] {5, 4, 1}) {
+            cc.put(testComponentTypes.get(i), new TestComponent.Impl(0));
+            cc1.put(testComponentTypes.get(i), new TestComponent.Impl(0));
+            CompoundTag componentTag = new TestComponent.Impl(i).toTag(new CompoundTag());
+            componentTag.putString("componentId", testComponentTypes.get(i).getSerializedId());
+            componentList.add(componentTag);
+        }
+        CompoundTag legacyTag = new CompoundTag();
+        legacyTag.put(AbstractComponentContainer.NBT_KEY, componentList);
+        cc.fromTag(legacyTag);
+        for (int i : new int[] {5, 4, 1}) {
+            Assertions.assertEquals(new TestComponent.Impl(i), cc.get(testComponentTypes.get(i)));
+        }
+        CompoundTag compactTag = cc.toTag(new CompoundTag());
+        Assertions.assertTrue(compactTag.contains(AbstractComponentContainer.NBT_KEY, NbtType.COMPOUND));
+        Assertions.assertEquals(AbstractComponentContainer.NBT_VERSION, compactTag.getInt(AbstractComponentContainer.NBT_VERSION_KEY));
+        cc1.fromTag(compactTag);
+        Assertions.assertEquals(cc, cc1);
+    }
+
+    @ContainerTest
+    void skipsUnknownSerializedIds(ComponentContainer<Component> cc) {
+        cc.put(testComponentTypes.get(3), new TestComponent.Impl(0));
+        CompoundTag componentMap = new CompoundTag();
+        componentMap.put("test:unknown", new TestComponent.Impl(7).toTag(new CompoundTag()));
+        componentMap.put("not a valid id", new TestComponent.Impl(8).toTag(new CompoundTag()));
+        componentMap.put(testComponentTypes.get(6).getSerializedId(), new TestComponent.Impl(6).toTag(new CompoundTag()));
+        componentMap.put(testComponentTypes.get(3).getSerializedId(), new TestComponent.Impl(3).toTag(new CompoundTag()));
+        CompoundTag tag = new CompoundTag();
+        tag.put(AbstractComponentContainer.NBT_KEY, componentMap);
+        Assertions.assertDoesNotThrow(() -> cc.fromTag(tag));
+        Assertions.assertEquals(new TestComponent.Impl(3), cc.get(testComponentTypes.get(3)));
+        Assertions.assertEquals(1, cc.size());
+
+        ListTag componentList = new ListTag();
+        CompoundTag unknown = new TestComponent.Impl(9).toTag(new CompoundTag());
+        unknown.putString("componentId", "test:unknown");
+        componentList.add(unknown);
+        CompoundTag legacyTag = new CompoundTag();
+        legacyTag.put(AbstractComponentContainer.NBT_KEY, componentList);
+        Assertions.assertDoesNotThrow(() -> cc.fromTag(legacyTag));
+        Assertions.assertEquals(new TestComponent.Impl(3), cc.get(testComponentTypes.get(3)));
+    }
+
+    @ContainerTest
+    void writesLegacyFormatWhenRequested(ComponentContainer<Component> cc, ComponentContainer<Component> cc1) {
+        for (int i : new int[] {2, 8}) {
+            cc.put(testComponentTypes.get(i), new TestComponent.Impl(i));
+            cc1.put(testComponentTypes.get(i), new TestComponent.Impl(0));
+        }
+        CompoundTag tag;
+        boolean legacy = ComponentsInternals.useLegacyNbtFormat();
+        ComponentsInternals.setLegacyNbtFormat(true);
+        try {
+            tag = cc.toTag(new CompoundTag());
+        } finally {
+            ComponentsInternals.setLegacyNbtFormat(legacy);
+        }
+        Assertions.assertTrue(tag.contains(AbstractComponentContainer.NBT_KEY, NbtType.LIST));
+        Assertions.assertFalse(tag.contains(AbstractComponentContainer.NBT_VERSION_KEY));
+        ListTag componentList = tag.getList(AbstractComponentContainer.NBT_KEY, NbtType.COMPOUND);
+        Assertions.assertEquals(2, componentList.size());
+        for (int i = 0; i < componentList.size(); i++) {
+            Assertions.assertTrue(componentList.getCompound(i).contains("componentId", NbtType.STRING));
+        }
+        cc1.fromTag(tag);
+        Assertions.assertEquals(cc, cc1);
+    }
+
     @ContainerTest
     void viewsWork(ComponentContainer<Component> cc) {
         Map<ComponentType<?>, Component> map = new HashMap<>();
@@ -116,11 +193,31 @@ class ComponentContainerTest {
         Assertions.assertEquals(map, cc);
     }
 
+    @Test
+    void cursorCanBeReused() {
+        FastComponentContainer<Component> cc = new FastComponentContainer<>();
+        for (int i : new int[] {5, 4, 1, 9}) {
+            cc.put(testComponentTypes.get(i), new TestComponent.Impl(i));
+        }
+        FastComponentContainer.Cursor<Component> cursor = cc.cursor();
+        Map<ComponentType<?>, Component> firstPass = new HashMap<>();
+        while (cursor.advance()) {
+            firstPass.put(cursor.getType(), cursor.getComponent());
+        }
+        Map<ComponentType<?>, Component> secondPass = new HashMap<>();
+        cursor.reset();
+        while (cursor.advance()) {
+            secondPass.put(cursor.getType(), cursor.getComponent());
+        }
+        Assertions.assertEquals(cc, firstPass);
+        Assertions.assertEquals(firstPass, secondPass);
+    }
+
     static class CustomArgumentProvider implements ArgumentsProvider {
         @Override
         public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
-            List<Supplier<ComponentContainer<?>>> vals = ImmutableList.of(IndexedComponentContainer::new, FastComponentContainer::new);
-            ImmutableSet<Supplier<ComponentContainer<?>>> types = ImmutableSet.of(IndexedComponentContainer::new, FastComponentContainer::new);
+            List<Supplier<ComponentContainer<?>>> vals = ImmutableList.of(IndexedComponentContainer::new, FastComponentContainer::new, () -> new FastComponentContainer<>(0, true));
+            ImmutableSet<Supplier<ComponentContainer<?>>> types = ImmutableSet.of(IndexedComponentContainer::new, FastComponentContainer::new, () -> new FastComponentContainer<>(0, true));
             return Stream.of(types)
                     .flatMap(s -> Sets.cartesianProduct(s, s).stream())
                     .map(l -> l.stream().map(Supplier::get).toArray())
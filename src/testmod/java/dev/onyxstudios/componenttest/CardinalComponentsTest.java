@@ -25,6 +25,7 @@ package dev.onyxstudios.componenttest;
 import com.google.common.reflect.TypeToken;
 import dev.onyxstudios.cca.api.v3.component.util.ComponentContainerMetafactory;
 import dev.onyxstudios.cca.internal.base.asm.StaticComponentLoadingException;
+import dev.onyxstudios.cca.internal.item.ItemStackAccess;
 import dev.onyxstudios.componenttest.vita.Vita;
 import nerdhub.cardinal.components.api.ComponentRegistry;
 import nerdhub.cardinal.components.api.component.Component;
@@ -43,6 +44,8 @@ import net.minecraft.entity.mob.ZombieEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 import org.apache.logging.log4j.LogManager;
@@ -80,6 +83,13 @@ public class CardinalComponentsTest {
 
         FabricDefaultAttributeRegistry.register(VITALITY_ZOMBIE, ZombieEntity.createZombieAttributes());
 
+        ItemStack stack = new ItemStack(Items.STICK);
+        ItemStack copy = stack.copy();
+        assert ItemStack.areEqual(stack, copy) && ItemStack.areTagsEqual(stack, copy);
+        assert ((ItemStackAccess) (Object) stack).cardinal_getComponentsIfCreated() == null
+            && ((ItemStackAccess) (Object) copy).cardinal_getComponentsIfCreated() == null
+            : "Copying or comparing item stacks must not create their components";
+
         try {
             ComponentRegistry.INSTANCE.registerStatic(TestComponents.OLD_VITA.getId(), TestComponents.OLD_VITA.getComponentClass());
             assert false : "Static components must be registered through mod metadata or plugin";